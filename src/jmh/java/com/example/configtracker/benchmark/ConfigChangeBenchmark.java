@@ -0,0 +1,92 @@
+package com.example.configtracker.benchmark;
+
+import com.example.configtracker.dto.ConfigChangeListDTO;
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx8g"})
+public class ConfigChangeBenchmark {
+
+  /** Filters of the listChanges call; only benchmarks taking this state are run once per filter. */
+  @State(Scope.Benchmark)
+  public static class ListQuery {
+
+    @Param({"NONE", "TYPE", "RANGE", "TYPE_AND_RANGE"})
+    public String filter;
+
+    public Optional<String> type;
+    public Optional<LocalDateTime> from;
+    public Optional<LocalDateTime> to;
+
+    @Setup(Level.Trial)
+    public void setUp(StoreState store) {
+      boolean byType = filter.startsWith("TYPE");
+      boolean byRange = filter.endsWith("RANGE");
+      // a window over 1% of the history, in the middle of it
+      LocalDateTime middle = StoreState.START.plusSeconds(store.storedChanges / 2);
+      type = byType ? Optional.of(StoreState.ruleName(StoreState.RULE_TYPES / 2)) : Optional.empty();
+      from = byRange ? Optional.of(middle) : Optional.empty();
+      to = byRange ? Optional.of(middle.plusSeconds(Math.max(store.storedChanges / 100, 2 * StoreState.RULE_TYPES)))
+          : Optional.empty();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class NewChanges {
+
+    // above every value of the preloaded history, so each logged change is new
+    private int nextValue = 1_000_000_000;
+    private long nextRule;
+
+    ConfigChange next() {
+      return new ConfigChange(null, nextRule++ % StoreState.RULE_TYPES + 1, String.valueOf(nextValue++), "bench",
+          null, false);
+    }
+  }
+
+  @Benchmark
+  public ConfigChange logChange(StoreState store, NewChanges changes) {
+    return store.configChangeService.logChange(changes.next());
+  }
+
+  @Benchmark
+  public List<ConfigChangeListDTO> listChanges(StoreState store, ListQuery query) {
+    return store.configChangeService.listChanges(query.type, query.from, query.to);
+  }
+
+  @Benchmark
+  public Optional<RuleType> findRuleTypeByName(StoreState store) {
+    // different case than stored, as clients send it
+    return store.ruleTypeRepo.findByName("benchmarkrule42");
+  }
+
+  @Benchmark
+  public Long generateId(StoreState store) {
+    return store.configChangeRepo.generateId();
+  }
+
+  @Benchmark
+  public void notifyCritical(StoreState store) {
+    store.notificationService.notify("Critical configuration change detected: benchmark");
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.configtracker.benchmark;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RuleTypeRepo;
+import com.example.configtracker.repo.StorageMode;
+import com.example.configtracker.service.ChangeFeed;
+import com.example.configtracker.service.ConfigChangeMetrics;
+import com.example.configtracker.service.ConfigChangeServiceImpl;
+import com.example.configtracker.service.FeedProperties;
+import com.example.configtracker.service.NotificationProperties;
+import com.example.configtracker.service.NotificationServiceImpl;
+import com.example.configtracker.service.OverflowPolicy;
+import com.example.configtracker.service.RuleTypeServiceImpl;
+import com.example.configtracker.service.StoreRevision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Services wired by hand around repositories preloaded with {@link #storedChanges} changes, spread
+ * evenly over {@link #RULE_TYPES} rule types one second apart. Persistence is off, as in tests.
+ */
+@State(Scope.Benchmark)
+public class StoreState {
+
+  public static final int RULE_TYPES = 100;
+  public static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  @Param({"10000", "1000000", "10000000"})
+  public int storedChanges;
+
+  @Param({"OBJECT"})
+  public StorageMode storageMode;
+
+  public ConfigChangeRepo configChangeRepo;
+  public RuleTypeRepo ruleTypeRepo;
+  public ConfigChangeServiceImpl configChangeService;
+  public NotificationServiceImpl notificationService;
+
+  private Path notificationDirectory;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    ruleTypeRepo = new RuleTypeRepo();
+    for (int i = 1; i <= RULE_TYPES; i++) {
+      ruleTypeRepo.save(new RuleType(null, ruleName(i), "INTEGER"));
+    }
+
+    configChangeRepo = new ConfigChangeRepo(storageMode);
+    for (int i = 0; i < storedChanges; i++) {
+      // values repeat across rules but never within one, like a real history
+      configChangeRepo.save(new ConfigChange(null, (long) (i % RULE_TYPES) + 1, String.valueOf(i / RULE_TYPES),
+          "loader", START.plusSeconds(i), false));
+    }
+
+    notificationDirectory = Files.createTempDirectory("configtracker-bench");
+    NotificationProperties notificationProperties = new NotificationProperties();
+    notificationProperties.setFile(notificationDirectory.resolve("notifications.log"));
+    // make producers wait for the writer so the benchmark measures sustained throughput
+    notificationProperties.setOverflowPolicy(OverflowPolicy.BLOCK);
+    notificationProperties.setBlockTimeout(Duration.ofSeconds(1));
+    notificationService = new NotificationServiceImpl(notificationProperties, new SimpleMeterRegistry());
+    notificationService.start();
+
+    configChangeService = wire(configChangeRepo, ruleTypeRepo, notificationService);
+  }
+
+  /** Builds the service layer over the given repositories the way Spring would. */
+  public static ConfigChangeServiceImpl wire(ConfigChangeRepo configChangeRepo, RuleTypeRepo ruleTypeRepo,
+      NotificationServiceImpl notificationService) {
+    StoreRevision storeRevision = new StoreRevision();
+    RuleTypeServiceImpl ruleTypeService = new RuleTypeServiceImpl();
+    ReflectionTestUtils.setField(ruleTypeService, "ruleTypeRepo", ruleTypeRepo);
+    ReflectionTestUtils.setField(ruleTypeService, "storeRevision", storeRevision);
+
+    ConfigChangeServiceImpl configChangeService = new ConfigChangeServiceImpl();
+    ReflectionTestUtils.setField(configChangeService, "configChangeRepo", configChangeRepo);
+    ReflectionTestUtils.setField(configChangeService, "notificationService", notificationService);
+    ReflectionTestUtils.setField(configChangeService, "ruleTypeService", ruleTypeService);
+    ReflectionTestUtils.setField(configChangeService, "validator",
+        Validation.buildDefaultValidatorFactory().getValidator());
+    ReflectionTestUtils.setField(configChangeService, "changeFeed", new ChangeFeed(new FeedProperties()));
+    ReflectionTestUtils.setField(configChangeService, "storeRevision", storeRevision);
+    ReflectionTestUtils.setField(configChangeService, "metrics", new ConfigChangeMetrics(new SimpleMeterRegistry()));
+    return configChangeService;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    notificationService.stop();
+    try (Stream<Path> files = Files.walk(notificationDirectory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  public static String ruleName(int index) {
+    return "BenchmarkRule" + index;
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.configtracker.benchmark;
+
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.persistence.FsyncPolicy;
+import com.example.configtracker.persistence.PersistenceProperties;
+import com.example.configtracker.persistence.RepositoryPersistence;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RuleTypeRepo;
+import com.example.configtracker.service.ConfigChangeServiceImpl;
+import com.example.configtracker.service.NotificationProperties;
+import com.example.configtracker.service.NotificationServiceImpl;
+import com.example.configtracker.service.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to serve a burst of {@link #concurrency} simultaneous logChange calls, each on its own
+ * request thread as the servlet container would run it: a pool of 200 platform threads (Tomcat's
+ * default maximum) against a virtual thread per request. The write-ahead log fsyncs every group
+ * commit, so each call blocks on disk I/O the way a persisted request does. Throughput is
+ * {@code concurrency} divided by the reported time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ThreadModeBenchmark {
+
+  public enum ThreadMode { PLATFORM, VIRTUAL }
+
+  private static final int RULE_TYPES = 100;
+  private static final int PLATFORM_POOL_SIZE = 200;
+
+  @Param({"PLATFORM", "VIRTUAL"})
+  public ThreadMode mode;
+
+  @Param({"1000", "10000"})
+  public int concurrency;
+
+  @Param({"ALWAYS"})
+  public FsyncPolicy fsync;
+
+  private Path directory;
+  private RepositoryPersistence persistence;
+  private NotificationServiceImpl notificationService;
+  private ConfigChangeServiceImpl configChangeService;
+  private ExecutorService requestThreads;
+  private int nextValue;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("configtracker-threads");
+    InternalThreads threads = new InternalThreads(mode == ThreadMode.VIRTUAL);
+
+    RuleTypeRepo ruleTypeRepo = new RuleTypeRepo();
+    ConfigChangeRepo configChangeRepo = new ConfigChangeRepo();
+    PersistenceProperties persistenceProperties = new PersistenceProperties();
+    persistenceProperties.setEnabled(true);
+    persistenceProperties.setDirectory(directory.resolve("data"));
+    persistenceProperties.setFsync(fsync);
+    persistence = new RepositoryPersistence(persistenceProperties, configChangeRepo, ruleTypeRepo);
+    persistence.start();
+    for (int i = 1; i <= RULE_TYPES; i++) {
+      ruleTypeRepo.save(new RuleType(null, StoreState.ruleName(i), "INTEGER"));
+    }
+
+    NotificationProperties notificationProperties = new NotificationProperties();
+    notificationProperties.setFile(directory.resolve("notifications.log"));
+    notificationProperties.setOverflowPolicy(OverflowPolicy.BLOCK);
+    notificationProperties.setBlockTimeout(Duration.ofSeconds(1));
+    notificationService = new NotificationServiceImpl(notificationProperties, new SimpleMeterRegistry(), threads);
+    notificationService.start();
+
+    configChangeService = StoreState.wire(configChangeRepo, ruleTypeRepo, notificationService);
+    requestThreads = mode == ThreadMode.VIRTUAL
+        ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException, InterruptedException {
+    requestThreads.shutdown();
+    requestThreads.awaitTermination(1, TimeUnit.MINUTES);
+    notificationService.stop();
+    persistence.stop();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public int logChangeBurst() throws InterruptedException, ExecutionException {
+    List<Future<ConfigChange>> requests = new ArrayList<>(concurrency);
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < concurrency; i++) {
+      int value = nextValue++;
+      // every tenth change is critical, so notification writes are part of the load
+      ConfigChange change = new ConfigChange(null, (long) (value % RULE_TYPES) + 1, String.valueOf(value),
+          "bench", now, value % 10 == 0);
+      requests.add(requestThreads.submit(() -> configChangeService.logChange(change)));
+    }
+    for (Future<ConfigChange> request : requests) {
+      request.get();
+    }
+    return requests.size();
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.configtracker.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Every latency of one endpoint, kept exactly so percentiles need no approximation. Not thread-safe. */
+final class LatencyRecorder {
+
+  private long[] latencies = new long[1024];
+  private int count;
+  private long errors;
+  private final Map<Integer, Long> statuses = new TreeMap<>();
+
+  /** @param status the HTTP status, or 0 if no response arrived */
+  void record(long nanos, int status) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+    }
+    latencies[count++] = nanos;
+    statuses.merge(status, 1L, Long::sum);
+    if (status == 0 || status >= 400) {
+      errors++;
+    }
+  }
+
+  void addAll(LatencyRecorder other) {
+    if (count + other.count > latencies.length) {
+      latencies = Arrays.copyOf(latencies, Math.max(count + other.count, latencies.length * 2));
+    }
+    System.arraycopy(other.latencies, 0, latencies, count, other.count);
+    count += other.count;
+    errors += other.errors;
+    other.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+  }
+
+  Summary summarize(String endpoint, double seconds) {
+    long[] sorted = Arrays.copyOf(latencies, count);
+    Arrays.sort(sorted);
+    return new Summary(endpoint, count, errors, count / seconds, millis(sorted, 0.50), millis(sorted, 0.99),
+        millis(sorted, 0.999), count == 0 ? 0 : sorted[count - 1] / 1e6, statuses);
+  }
+
+  /** Nearest-rank percentile. */
+  private static double millis(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile * sorted.length);
+    return sorted[Math.max(rank, 1) - 1] / 1e6;
+  }
+
+  record Summary(String endpoint, long requests, long errors, double throughput, double p50, double p99,
+      double p999, double max, Map<Integer, Long> statuses) {
+  }
+}
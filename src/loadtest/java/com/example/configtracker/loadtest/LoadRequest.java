@@ -0,0 +1,26 @@
+package com.example.configtracker.loadtest;
+
+/**
+ * A request template. {@code path} and {@code body} may contain {{variables}} that are resolved
+ * per request by {@link Variables}; latencies are reported per {@code endpoint}.
+ */
+record LoadRequest(String endpoint, String method, String path, String body) {
+
+  LoadRequest {
+    if (endpoint == null) {
+      endpoint = method + " " + endpointPath(path);
+    }
+  }
+
+  /** The path without its query, with numeric segments folded into {id}. */
+  private static String endpointPath(String path) {
+    int query = path.indexOf('?');
+    String[] segments = (query < 0 ? path : path.substring(0, query)).split("/", -1);
+    for (int i = 0; i < segments.length; i++) {
+      if (!segments[i].isEmpty() && segments[i].chars().allMatch(Character::isDigit)) {
+        segments[i] = "{id}";
+      }
+    }
+    return String.join("/", segments);
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.configtracker.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests from {@code concurrency} workers until the duration, the request limit or the
+ * source runs out. Without a rate every worker sends its next request as soon as the previous one is
+ * answered. With a rate, requests are scheduled at fixed intervals and each latency is measured from
+ * the scheduled start, so a stalled server is charged for the requests it delayed as well.
+ */
+final class LoadRunner {
+
+  static final String TOTAL = "TOTAL";
+
+  private final HttpClient client;
+  private final URI baseUri;
+  private final RequestSource source;
+  private final Variables variables;
+  private final int concurrency;
+  private final double rate;
+  private final Duration warmup;
+  private final Duration duration;
+  private final long maxRequests;
+
+  private final AtomicLong issued = new AtomicLong();
+  private long start;
+  private long measureFrom;
+  private long end;
+
+  LoadRunner(HttpClient client, URI baseUri, RequestSource source, Variables variables, int concurrency,
+      double rate, Duration warmup, Duration duration, long maxRequests) {
+    this.client = client;
+    this.baseUri = baseUri;
+    this.source = source;
+    this.variables = variables;
+    this.concurrency = concurrency;
+    this.rate = rate;
+    this.warmup = warmup;
+    this.duration = duration;
+    this.maxRequests = maxRequests;
+  }
+
+  /** Runs the load and returns a summary per endpoint, plus one for all of them under {@link #TOTAL}. */
+  List<LatencyRecorder.Summary> run() throws InterruptedException, ExecutionException {
+    start = System.nanoTime();
+    measureFrom = start + warmup.toNanos();
+    end = measureFrom + duration.toNanos();
+    List<Future<Map<String, LatencyRecorder>>> workers = new ArrayList<>(concurrency);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < concurrency; i++) {
+        workers.add(executor.submit(this::work));
+      }
+    }
+    double seconds = Math.max(Math.min(System.nanoTime(), end) - measureFrom, 1) / 1e9;
+
+    Map<String, LatencyRecorder> merged = new TreeMap<>();
+    LatencyRecorder total = new LatencyRecorder();
+    for (Future<Map<String, LatencyRecorder>> worker : workers) {
+      worker.get().forEach((endpoint, recorder) -> {
+        merged.computeIfAbsent(endpoint, e -> new LatencyRecorder()).addAll(recorder);
+        total.addAll(recorder);
+      });
+    }
+    List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+    merged.forEach((endpoint, recorder) -> summaries.add(recorder.summarize(endpoint, seconds)));
+    summaries.add(total.summarize(TOTAL, seconds));
+    return summaries;
+  }
+
+  private Map<String, LatencyRecorder> work() {
+    Map<String, LatencyRecorder> recorders = new HashMap<>();
+    while (true) {
+      long slot = issued.getAndIncrement();
+      if (slot >= maxRequests || System.nanoTime() >= end) {
+        return recorders;
+      }
+      LoadRequest template = source.next();
+      if (template == null) {
+        return recorders;
+      }
+      long scheduled = rate > 0 ? start + (long) (slot * 1e9 / rate) : System.nanoTime();
+      if (scheduled >= end) {
+        return recorders;
+      }
+      for (long wait; (wait = scheduled - System.nanoTime()) > 0; ) {
+        LockSupport.parkNanos(wait);
+      }
+      int status = send(variables.bind(template));
+      long finished = System.nanoTime();
+      if (scheduled >= measureFrom) {
+        recorders.computeIfAbsent(template.endpoint(), e -> new LatencyRecorder())
+            .record(finished - scheduled, status);
+      }
+    }
+  }
+
+  private int send(LoadRequest request) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(request.path()))
+        .timeout(Duration.ofSeconds(30));
+    if (request.body() == null) {
+      builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+    } else {
+      builder.header("Content-Type", "application/json")
+          .method(request.method(), HttpRequest.BodyPublishers.ofString(request.body()));
+    }
+    try {
+      return client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    } catch (IOException e) {
+      return 0;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    }
+  }
+}
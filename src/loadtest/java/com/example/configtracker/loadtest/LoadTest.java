@@ -0,0 +1,221 @@
+package com.example.configtracker.loadtest;
+
+import com.example.configtracker.ConfigtrackerApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Drives a Config Tracker instance with a synthetic traffic mix, a recorded JSONL stream or a Postman
+ * collection and reports throughput and latency percentiles per endpoint. See the README for the
+ * options; run it with {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="..."}.
+ */
+public final class LoadTest {
+
+  private static final String RULE_TYPE_PREFIX = "LoadTestRule";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, List<String>> options = parse(args);
+    ConfigurableApplicationContext application = null;
+    try {
+      URI baseUri;
+      if (options.containsKey("start")) {
+        application = start(options.getOrDefault("app-arg", List.of()));
+        baseUri = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+      } else {
+        baseUri = URI.create(option(options, "url", "http://localhost:8080"));
+      }
+      run(baseUri, options);
+    } finally {
+      if (application != null) {
+        application.close();
+      }
+    }
+  }
+
+  private static void run(URI baseUri, Map<String, List<String>> options) throws Exception {
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5)).build();
+
+    Map<String, String> values = new HashMap<>();
+    for (String variable : options.getOrDefault("var", List.of())) {
+      int eq = variable.indexOf('=');
+      if (eq < 1) {
+        throw new IllegalArgumentException("--var expects name=value: " + variable);
+      }
+      values.put(variable.substring(0, eq), variable.substring(eq + 1));
+    }
+    boolean loop = options.containsKey("loop");
+    List<String> excluded = options.getOrDefault("exclude", List.of());
+    RequestSource source;
+    String traffic;
+    if (options.containsKey("replay")) {
+      traffic = "replay of " + option(options, "replay", null);
+      List<LoadRequest> requests = RecordedRequests.readJsonl(Path.of(option(options, "replay", null)));
+      requests.removeIf(request -> excluded.contains(request.endpoint()));
+      source = RequestSource.replay(requests, loop);
+    } else if (options.containsKey("postman")) {
+      traffic = "postman collection " + option(options, "postman", null);
+      List<LoadRequest> requests = RecordedRequests.readPostman(Path.of(option(options, "postman", null)), values);
+      requests.removeIf(request -> excluded.contains(request.endpoint()));
+      source = RequestSource.replay(requests, loop);
+    } else {
+      traffic = "synthetic mix";
+      source = RequestSource.mix(syntheticMix());
+    }
+
+    int ruleTypes = Integer.parseInt(option(options, "rule-types", "20"));
+    List<Long> ruleTypeIds = new ArrayList<>();
+    List<String> ruleTypeNames = new ArrayList<>();
+    seedRuleTypes(client, baseUri, ruleTypes, ruleTypeIds, ruleTypeNames);
+
+    int concurrency = Integer.parseInt(option(options, "concurrency", "32"));
+    double rate = Double.parseDouble(option(options, "rate", "0"));
+    Duration warmup = DurationStyle.detectAndParse(option(options, "warmup", "5s"));
+    Duration duration = DurationStyle.detectAndParse(option(options, "duration", "30s"));
+    long maxRequests = Long.parseLong(option(options, "requests", Long.toString(Long.MAX_VALUE)));
+
+    System.out.printf("Load test against %s: %s, %d workers, %s, %s warmup, %s%n", baseUri, traffic, concurrency,
+        rate > 0 ? rate + " requests/s" : "closed loop", warmup, duration);
+    List<LatencyRecorder.Summary> summaries = new LoadRunner(client, baseUri, source,
+        new Variables(values, ruleTypeIds, ruleTypeNames), concurrency, rate, warmup, duration, maxRequests).run();
+    print(summaries);
+
+    if (options.containsKey("out")) {
+      Path out = Path.of(option(options, "out", null));
+      if (out.getParent() != null) {
+        Files.createDirectories(out.getParent());
+      }
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("target", baseUri.toString());
+      result.put("traffic", traffic);
+      result.put("concurrency", concurrency);
+      result.put("rate", rate);
+      result.put("warmup", warmup.toString());
+      result.put("duration", duration.toString());
+      result.put("endpoints", summaries);
+      MAPPER.writerWithDefaultPrettyPrinter().writeValue(out.toFile(), result);
+      System.out.println("Results written to " + out);
+    }
+  }
+
+  /** Writes dominate, as they do for a change log; reads cover each query shape. */
+  private static Map<LoadRequest, Integer> syntheticMix() {
+    String change = "{\"ruleTypeId\":{{ruleTypeId}},\"currentValue\":\"{{$sequence}}\",\"changedBy\":\"load test\","
+        + "\"critical\":%s}";
+    Map<LoadRequest, Integer> mix = new LinkedHashMap<>();
+    mix.put(new LoadRequest("POST /api/config-changes", "POST", "/api/config-changes", change.formatted(false)), 38);
+    mix.put(new LoadRequest("POST /api/config-changes", "POST", "/api/config-changes", change.formatted(true)), 2);
+    mix.put(new LoadRequest(null, "GET", "/api/config-changes?type={{ruleTypeName}}", null), 15);
+    mix.put(new LoadRequest(null, "GET", "/api/config-changes/page?type={{ruleTypeName}}&limit=100", null), 15);
+    mix.put(new LoadRequest(null, "GET", "/api/config-changes/current", null), 10);
+    mix.put(new LoadRequest("GET /api/config-changes/current/{id}", "GET",
+        "/api/config-changes/current/{{ruleTypeId}}", null), 10);
+    mix.put(new LoadRequest(null, "GET", "/api/rule-types", null), 5);
+    mix.put(new LoadRequest("GET /api/rule-types/{id}", "GET", "/api/rule-types/{{ruleTypeId}}", null), 5);
+    return mix;
+  }
+
+  /** Makes sure LoadTestRule1..n exist as STRING rule types, reusing those left by earlier runs. */
+  private static void seedRuleTypes(HttpClient client, URI baseUri, int count, List<Long> ids, List<String> names)
+      throws IOException, InterruptedException {
+    if (count <= 0) {
+      return;
+    }
+    Map<String, Long> existing = new HashMap<>();
+    HttpResponse<String> all = call(client, baseUri, "GET", "/api/rule-types", null);
+    // an empty store answers 400
+    if (all.statusCode() == 200) {
+      for (JsonNode ruleType : MAPPER.readTree(all.body())) {
+        existing.put(ruleType.path("name").asText(), ruleType.path("id").asLong());
+      }
+    }
+    for (int i = 1; i <= count; i++) {
+      String name = RULE_TYPE_PREFIX + i;
+      Long id = existing.get(name);
+      if (id == null) {
+        String body = MAPPER.writeValueAsString(Map.of("name", name, "valueType", "STRING"));
+        HttpResponse<String> created = call(client, baseUri, "POST", "/api/rule-types", body);
+        if (created.statusCode() >= 400) {
+          throw new IOException("Creating rule type " + name + " failed with " + created.statusCode() + ": "
+              + created.body());
+        }
+        id = MAPPER.readTree(created.body()).path("id").asLong();
+      }
+      ids.add(id);
+      names.add(name);
+    }
+  }
+
+  private static HttpResponse<String> call(HttpClient client, URI baseUri, String method, String path, String body)
+      throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+        .header("Content-Type", "application/json")
+        .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+        .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  /** Starts the application in this JVM on a free port, writing its files under target/loadtest. */
+  private static ConfigurableApplicationContext start(List<String> appArgs) {
+    List<String> args = new ArrayList<>(List.of("--server.port=0",
+        "--configtracker.notifications.file=target/loadtest/notifications.log",
+        "--configtracker.persistence.directory=target/loadtest/data"));
+    args.addAll(appArgs);
+    return SpringApplication.run(ConfigtrackerApplication.class, args.toArray(String[]::new));
+  }
+
+  private static void print(List<LatencyRecorder.Summary> summaries) {
+    int width = summaries.stream().mapToInt(s -> s.endpoint().length()).max().orElse(8);
+    String row = "%-" + width + "s %9s %7s %10s %9s %9s %9s %9s%n";
+    System.out.printf(row, "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+    for (LatencyRecorder.Summary s : summaries) {
+      System.out.printf(row, s.endpoint(), s.requests(), s.errors(), "%.1f".formatted(s.throughput()),
+          "%.2f".formatted(s.p50()), "%.2f".formatted(s.p99()), "%.2f".formatted(s.p999()), "%.2f".formatted(s.max()));
+      if (s.errors() > 0 && !s.endpoint().equals(LoadRunner.TOTAL)) {
+        System.out.printf("%-" + width + "s statuses %s%n", "", s.statuses());
+      }
+    }
+  }
+
+  private static Map<String, List<String>> parse(String[] args) {
+    Map<String, List<String>> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--")) {
+        throw new IllegalArgumentException("Unexpected argument: " + arg);
+      }
+      int eq = arg.indexOf('=');
+      String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+      if (!List.of("start", "url", "replay", "postman", "loop", "var", "rule-types", "concurrency", "rate",
+          "warmup", "duration", "requests", "out", "app-arg", "exclude").contains(name)) {
+        throw new IllegalArgumentException("Unknown option: --" + name);
+      }
+      options.computeIfAbsent(name, n -> new ArrayList<>()).add(eq < 0 ? "" : arg.substring(eq + 1));
+    }
+    return options;
+  }
+
+  private static String option(Map<String, List<String>> options, String name, String defaultValue) {
+    List<String> values = options.get(name);
+    return values == null ? defaultValue : values.get(values.size() - 1);
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.configtracker.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Reads request templates from recorded streams and Postman collections. */
+final class RecordedRequests {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private RecordedRequests() {
+  }
+
+  /**
+   * One JSON object per line: {@code method}, {@code path} (with query), an optional {@code body}
+   * given as JSON or as a string, and an optional {@code name} to report the request under.
+   */
+  static List<LoadRequest> readJsonl(Path file) throws IOException {
+    List<LoadRequest> requests = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      String line;
+      int number = 0;
+      while ((line = reader.readLine()) != null) {
+        number++;
+        if (line.isBlank()) {
+          continue;
+        }
+        JsonNode node = MAPPER.readTree(line);
+        if (!node.hasNonNull("method") || !node.hasNonNull("path")) {
+          throw new IOException(file + ":" + number + ": method and path are required");
+        }
+        JsonNode body = node.get("body");
+        requests.add(new LoadRequest(text(node, "name"), node.get("method").asText().toUpperCase(),
+            node.get("path").asText(), body == null || body.isNull() ? null : body.isTextual() ? body.asText()
+                : MAPPER.writeValueAsString(body)));
+      }
+    }
+    return requests;
+  }
+
+  /**
+   * The requests of a Postman v2.1 collection, folders flattened in order, reported under their item
+   * names. Items without a URL are skipped. The host part of each URL is ignored.
+   */
+  static List<LoadRequest> readPostman(Path file, Map<String, String> variables) throws IOException {
+    JsonNode collection = MAPPER.readTree(file.toFile());
+    for (JsonNode variable : collection.path("variable")) {
+      variables.putIfAbsent(variable.path("key").asText(), variable.path("value").asText());
+    }
+    List<LoadRequest> requests = new ArrayList<>();
+    addItems(collection.path("item"), requests);
+    return requests;
+  }
+
+  private static void addItems(JsonNode items, List<LoadRequest> requests) {
+    for (JsonNode item : items) {
+      if (item.has("item")) {
+        addItems(item.get("item"), requests);
+        continue;
+      }
+      JsonNode request = item.path("request");
+      JsonNode url = request.path("url");
+      if (url.isMissingNode()) {
+        continue;
+      }
+      JsonNode body = request.path("body");
+      String raw = "raw".equals(body.path("mode").asText()) ? body.path("raw").asText() : "";
+      requests.add(new LoadRequest(text(item, "name"), request.path("method").asText("GET"), path(url),
+          raw.isBlank() ? null : raw));
+    }
+  }
+
+  private static String path(JsonNode url) {
+    if (url.isTextual()) {
+      // a bare string URL: drop {{base_url}} or scheme and host
+      String raw = url.asText().replaceFirst("^(\\{\\{[^}]+}}|\\w+://[^/]+)", "");
+      return raw.startsWith("/") ? raw : "/" + raw;
+    }
+    StringBuilder path = new StringBuilder();
+    for (JsonNode segment : url.path("path")) {
+      path.append('/').append(segment.asText());
+    }
+    if (path.isEmpty()) {
+      path.append('/');
+    }
+    Map<String, String> query = new LinkedHashMap<>();
+    for (JsonNode parameter : url.path("query")) {
+      if (!parameter.path("disabled").asBoolean()) {
+        query.put(parameter.path("key").asText(), parameter.path("value").asText());
+      }
+    }
+    char separator = '?';
+    for (Map.Entry<String, String> parameter : query.entrySet()) {
+      path.append(separator).append(parameter.getKey()).append('=').append(parameter.getValue());
+      separator = '&';
+    }
+    return path.toString();
+  }
+
+  private static String text(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+}
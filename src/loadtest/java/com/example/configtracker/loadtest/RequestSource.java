@@ -0,0 +1,48 @@
+package com.example.configtracker.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Supplies request templates to all load workers concurrently. */
+interface RequestSource {
+
+  /** The next template, or null when the source is exhausted. */
+  LoadRequest next();
+
+  /** The templates in order, once or round and round. */
+  static RequestSource replay(List<LoadRequest> requests, boolean loop) {
+    if (requests.isEmpty()) {
+      throw new IllegalArgumentException("Nothing to replay");
+    }
+    AtomicLong cursor = new AtomicLong();
+    return () -> {
+      long index = cursor.getAndIncrement();
+      if (!loop && index >= requests.size()) {
+        return null;
+      }
+      return requests.get((int) (index % requests.size()));
+    };
+  }
+
+  /** Templates picked at random in proportion to their weights. */
+  static RequestSource mix(Map<LoadRequest, Integer> weights) {
+    LoadRequest[] requests = weights.keySet().toArray(LoadRequest[]::new);
+    int[] cumulative = new int[requests.length];
+    int total = 0;
+    for (int i = 0; i < requests.length; i++) {
+      total += weights.get(requests[i]);
+      cumulative[i] = total;
+    }
+    int sum = total;
+    return () -> {
+      int pick = ThreadLocalRandom.current().nextInt(sum);
+      int i = 0;
+      while (cumulative[i] <= pick) {
+        i++;
+      }
+      return requests[i];
+    };
+  }
+}
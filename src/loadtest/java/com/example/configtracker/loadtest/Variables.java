@@ -0,0 +1,69 @@
+package com.example.configtracker.loadtest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves {{name}} placeholders in request templates:
+ * <ul>
+ *   <li>{@code ruleTypeId} and {@code ruleTypeName}: one of the seeded rule types, the same one for
+ *       the path and the body of a request, unless none were seeded</li>
+ *   <li>{@code $sequence}: a value unique within the run, so logged changes are never duplicates</li>
+ *   <li>{@code $guid}, {@code $randomInt} and {@code $timestamp}, as in Postman</li>
+ *   <li>anything passed with {@code --var name=value} or defined by the Postman collection</li>
+ * </ul>
+ * Unknown names are left as they are.
+ */
+final class Variables {
+
+  private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([$\\w.-]+)\\s*}}");
+
+  private final Map<String, String> values;
+  private final List<Long> ruleTypeIds;
+  private final List<String> ruleTypeNames;
+  private final String runId = Long.toString(System.currentTimeMillis(), 36);
+  private final AtomicLong sequence = new AtomicLong();
+
+  Variables(Map<String, String> values, List<Long> ruleTypeIds, List<String> ruleTypeNames) {
+    this.values = values;
+    this.ruleTypeIds = ruleTypeIds;
+    this.ruleTypeNames = ruleTypeNames;
+  }
+
+  LoadRequest bind(LoadRequest request) {
+    int ruleType = ruleTypeIds.isEmpty() ? -1 : ThreadLocalRandom.current().nextInt(ruleTypeIds.size());
+    return new LoadRequest(request.endpoint(), request.method(), resolve(request.path(), ruleType),
+        request.body() == null ? null : resolve(request.body(), ruleType));
+  }
+
+  private String resolve(String template, int ruleType) {
+    if (template.indexOf("{{") < 0) {
+      return template;
+    }
+    Matcher matcher = PLACEHOLDER.matcher(template);
+    StringBuilder resolved = new StringBuilder(template.length() + 16);
+    while (matcher.find()) {
+      String value = value(matcher.group(1), ruleType);
+      matcher.appendReplacement(resolved, Matcher.quoteReplacement(value == null ? matcher.group() : value));
+    }
+    return matcher.appendTail(resolved).toString();
+  }
+
+  private String value(String name, int ruleType) {
+    return switch (name) {
+      case "ruleTypeId" -> ruleType < 0 ? values.get(name) : ruleTypeIds.get(ruleType).toString();
+      case "ruleTypeName" -> ruleType < 0 ? values.get(name) : ruleTypeNames.get(ruleType);
+      case "$sequence" -> runId + "-" + sequence.incrementAndGet();
+      case "$guid" -> UUID.randomUUID().toString();
+      case "$randomInt" -> Integer.toString(ThreadLocalRandom.current().nextInt(1001));
+      case "$timestamp" -> Long.toString(Instant.now().getEpochSecond());
+      default -> values.get(name);
+    };
+  }
+}
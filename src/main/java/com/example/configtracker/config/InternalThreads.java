@@ -0,0 +1,49 @@
+package com.example.configtracker.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the application's own background threads in the mode chosen for the web layer: virtual
+ * threads when {@code spring.threads.virtual.enabled} is set (on JDK 21+), daemon platform threads
+ * otherwise.
+ */
+@Component
+public class InternalThreads {
+
+  public static final InternalThreads PLATFORM = new InternalThreads(false);
+
+  private final boolean virtual;
+
+  @Autowired
+  public InternalThreads(Environment environment) {
+    this(Threading.VIRTUAL.isActive(environment));
+  }
+
+  public InternalThreads(boolean virtual) {
+    this.virtual = virtual;
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  /** Threads named {@code <name>-1}, {@code <name>-2}, ... */
+  public ThreadFactory factory(String name) {
+    return virtual
+        ? Thread.ofVirtual().name(name + "-", 1).factory()
+        : Thread.ofPlatform().name(name + "-", 1).daemon(true).factory();
+  }
+
+  /** Unbounded executor: a new virtual thread per task, or a cached pool of platform threads. */
+  public ExecutorService newExecutor(String name) {
+    return virtual
+        ? Executors.newThreadPerTaskExecutor(factory(name))
+        : Executors.newCachedThreadPool(factory(name));
+  }
+}
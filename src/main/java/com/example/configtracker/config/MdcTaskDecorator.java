@@ -0,0 +1,38 @@
+package com.example.configtracker.config;
+
+import java.util.Map;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting thread's MDC, and with it the correlation id set by
+ * {@link com.example.configtracker.filter.CorrelationIdFilter}, into tasks run on Spring's
+ * application task executor, such as streamed responses. Spring Boot applies the bean to that
+ * executor in both platform and virtual thread mode.
+ */
+@Component
+public class MdcTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    Map<String, String> context = MDC.getCopyOfContextMap();
+    return () -> {
+      Map<String, String> previous = MDC.getCopyOfContextMap();
+      setContext(context);
+      try {
+        runnable.run();
+      } finally {
+        setContext(previous);
+      }
+    };
+  }
+
+  private static void setContext(Map<String, String> context) {
+    if (context == null) {
+      MDC.clear();
+    } else {
+      MDC.setContextMap(context);
+    }
+  }
+}
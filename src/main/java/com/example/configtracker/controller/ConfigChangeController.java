@@ -1,24 +1,42 @@
 package com.example.configtracker.controller;
 
+import com.example.configtracker.dto.ConfigChangeBatchResultDTO;
 import com.example.configtracker.dto.ConfigChangeListDTO;
+import com.example.configtracker.dto.ConfigChangePageDTO;
+import com.example.configtracker.dto.EffectiveValueDTO;
+import com.example.configtracker.dto.RuleTypeStatsDTO;
 import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.exception.ResourceNotFoundException;
+import com.example.configtracker.service.ChangeFeed;
 import com.example.configtracker.service.ConfigChangeService;
+import com.example.configtracker.service.RuleTypeService;
+import com.example.configtracker.service.StoreRevision;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/config-changes")
@@ -27,6 +45,20 @@ public class ConfigChangeController {
   @Autowired
   private ConfigChangeService service;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RuleTypeService ruleTypeService;
+
+  @Autowired
+  private ChangeFeed changeFeed;
+
+  @Autowired
+  private StoreRevision storeRevision;
+
+  private static final String NDJSON = "application/x-ndjson";
+
   private final Logger log = LoggerFactory.getLogger(ConfigChangeController.class);
 
   @PostMapping
@@ -35,19 +67,158 @@ public class ConfigChangeController {
     return ResponseEntity.ok(service.logChange(change));
   }
 
+  @PostMapping("/batch")
+  public ResponseEntity<ConfigChangeBatchResultDTO> createChanges(@RequestBody List<ConfigChange> changes) {
+    log.info("Received request to create a batch of {} config changes", changes.size());
+    return ResponseEntity.ok(service.logChanges(changes));
+  }
+
   @GetMapping
   public ResponseEntity<List<ConfigChangeListDTO>> getChanges(
       @RequestParam(required = false) String type,
       @RequestParam(required = false) LocalDateTime from,
-      @RequestParam(required = false) LocalDateTime to) {
+      @RequestParam(required = false) LocalDateTime to,
+      WebRequest request) {
     log.info("Received request to get all config changes");
-    return ResponseEntity.ok(service.listChanges(Optional.ofNullable(type), Optional.ofNullable(from), Optional.ofNullable(to)));
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.listChanges(Optional.ofNullable(type), Optional.ofNullable(from), Optional.ofNullable(to)));
+  }
+
+  @GetMapping("/page")
+  public ResponseEntity<ConfigChangePageDTO> getChangesPage(
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) LocalDateTime from,
+      @RequestParam(required = false) LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "100") int limit,
+      WebRequest request) {
+    log.info("Received request to get a page of config changes, limit={}", limit);
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.listChangesPage(Optional.ofNullable(type), Optional.ofNullable(from),
+        Optional.ofNullable(to), Optional.ofNullable(cursor), limit));
+  }
+
+  @GetMapping(value = "/export", produces = NDJSON)
+  public ResponseEntity<StreamingResponseBody> exportChanges(
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) LocalDateTime from,
+      @RequestParam(required = false) LocalDateTime to) {
+    log.info("Received request to export config changes");
+    StreamingResponseBody body = out -> {
+      JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      try {
+        service.exportChanges(Optional.ofNullable(type), Optional.ofNullable(from), Optional.ofNullable(to),
+            item -> {
+              try {
+                // the generator flushes its small buffer as it fills, so a slow client blocks the export
+                generator.writeObject(item);
+                generator.writeRaw('\n');
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      generator.close();
+    };
+    return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+  }
+
+  @GetMapping("/current")
+  public ResponseEntity<List<EffectiveValueDTO>> getCurrentValues(WebRequest request) {
+    log.info("Received request to get current values of all rules");
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.listCurrentValues());
+  }
+
+  @GetMapping("/current/{ruleTypeId}")
+  public ResponseEntity<EffectiveValueDTO> getCurrentValue(@PathVariable Long ruleTypeId, WebRequest request) {
+    log.info("Received request to get current value for ruleId={}", ruleTypeId);
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.getCurrentValue(ruleTypeId));
+  }
+
+  @GetMapping("/current/name/{name}")
+  public ResponseEntity<EffectiveValueDTO> getCurrentValueByName(@PathVariable String name, WebRequest request) {
+    log.info("Received request to get current value for rule name={}", name);
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.getCurrentValueByName(name));
+  }
+
+  @GetMapping("/as-of")
+  public ResponseEntity<List<EffectiveValueDTO>> getValuesAsOf(
+      @RequestParam LocalDateTime at,
+      @RequestParam(required = false) String type,
+      WebRequest request) {
+    log.info("Received request to get rule values as of {}", at);
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.listValuesAsOf(at, Optional.ofNullable(type)));
+  }
+
+  @GetMapping("/stats")
+  public ResponseEntity<List<RuleTypeStatsDTO>> getStats(
+      @RequestParam(defaultValue = "24") int hours,
+      WebRequest request) {
+    log.info("Received request to get change stats of all rule types, hours={}", hours);
+    String etag = statsEtag(hours);
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.listStats(hours));
+  }
+
+  @GetMapping("/stats/{ruleTypeId}")
+  public ResponseEntity<RuleTypeStatsDTO> getStatsOfRuleType(
+      @PathVariable Long ruleTypeId,
+      @RequestParam(defaultValue = "24") int hours,
+      WebRequest request) {
+    log.info("Received request to get change stats of rule type {}, hours={}", ruleTypeId, hours);
+    String etag = statsEtag(hours);
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.getStats(ruleTypeId, hours));
+  }
+
+  @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter feed(
+      @RequestParam(required = false) String type,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    log.info("Received request to subscribe to config changes, type={}, lastEventId={}", type, lastEventId);
+    Long ruleTypeId = type == null ? null : ruleTypeService.findRuleTypeByName(type)
+        .orElseThrow(() -> new ResourceNotFoundException("RuleType", "name", type))
+        .getId();
+    return changeFeed.subscribe(ruleTypeId, lastEventId);
   }
 
   @GetMapping("/{id}")
-  public ResponseEntity<ConfigChange> getChangeById(@PathVariable Long id) {
+  public ResponseEntity<ConfigChange> getChangeById(@PathVariable Long id, WebRequest request) {
     log.info("Received request to get config change for changeId={}",id);
-    return ResponseEntity.ok(service.getChangeById(id));
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.getChangeById(id));
   }
 
   @DeleteMapping("/{id}")
@@ -56,5 +227,9 @@ public class ConfigChangeController {
     ConfigChange configChangeDeleted = service.delete(id);
     return ResponseEntity.ok(configChangeDeleted);
   }
-}
 
+  // the hourly window moves with the clock, so the tag changes every hour even without writes
+  private String statsEtag(int hours) {
+    return storeRevision.etag(hours + "h" + LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+  }
+}
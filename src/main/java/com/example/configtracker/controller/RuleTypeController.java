@@ -1,14 +1,19 @@
 package com.example.configtracker.controller;
 
 import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.exception.APIException;
+import com.example.configtracker.exception.VersionConflictException;
 import com.example.configtracker.service.RuleTypeService;
+import com.example.configtracker.service.StoreRevision;
 import jakarta.validation.Valid;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/rule-types")
@@ -17,6 +22,9 @@ public class RuleTypeController {
   @Autowired
   private RuleTypeService service;
 
+  @Autowired
+  private StoreRevision storeRevision;
+
   private final Logger log = LoggerFactory.getLogger(ConfigChangeController.class);
 
   @PostMapping
@@ -26,23 +34,36 @@ public class RuleTypeController {
   }
 
   @GetMapping
-  public ResponseEntity<List<RuleType>> getAllRuleTypes() {
+  public ResponseEntity<List<RuleType>> getAllRuleTypes(WebRequest request) {
     log.info("Received request to get all rule types");
-    return ResponseEntity.ok(service.listRuleTypes());
+    String etag = storeRevision.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(service.listRuleTypes());
   }
 
+  // a single rule type is tagged with its own version, which PUT accepts back in If-Match; the tag
+  // also carries the boot id, so it is not taken for another rule type's version after a restart
   @GetMapping("/{id}")
-  public ResponseEntity<RuleType> getRuleTypeById(@PathVariable Long id) {
+  public ResponseEntity<RuleType> getRuleTypeById(@PathVariable Long id, WebRequest request) {
     log.info("Received request to get ruleType for ruleId={}", id);
-    return ResponseEntity.ok(service.getRuleTypeById(id));
+    RuleType ruleType = service.getRuleTypeById(id);
+    String etag = versionTag(ruleType);
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(ruleType);
   }
 
   @PutMapping("/{ruleId}")
   public ResponseEntity<RuleType> updateRuleType(
       @PathVariable Long ruleId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Valid @RequestBody RuleType updatedRuleType) {
     log.info("Received request to update ruleType for ruleId={}", ruleId);
-    return ResponseEntity.ok(service.updateRuleType(ruleId, updatedRuleType));
+    RuleType updated = service.updateRuleType(ruleId, updatedRuleType, expectedVersion(ruleId, ifMatch));
+    return ResponseEntity.ok().eTag(versionTag(updated)).body(updated);
   }
 
   @DeleteMapping("/{id}")
@@ -50,5 +71,38 @@ public class RuleTypeController {
     log.info("Received request to delete ruleType for ruleId={}", id);
     return ResponseEntity.ok(service.deleteRuleType(id));
   }
+
+  private String versionTag(RuleType ruleType) {
+    return "\"" + storeRevision.bootId() + "-" + ruleType.getVersion() + "\"";
+  }
+
+  /**
+   * The version in an If-Match header, or {@code null} for none or {@code *}. Both the bare version
+   * and the tag from {@link #versionTag} are accepted; a tag from before a restart never matches.
+   */
+  private Long expectedVersion(Long ruleId, String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.startsWith("W/")) {
+      tag = tag.substring(2);
+    }
+    if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      tag = tag.substring(1, tag.length() - 1);
+    }
+    int separator = tag.lastIndexOf('-');
+    long version;
+    try {
+      version = Long.parseLong(tag.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      throw new APIException("Invalid If-Match version: " + ifMatch);
+    }
+    if (separator >= 0 && !tag.substring(0, separator).equals(storeRevision.bootId())) {
+      throw new VersionConflictException("RuleType", ruleId, version,
+          service.getRuleTypeById(ruleId).getVersion());
+    }
+    return version;
+  }
 }
 
@@ -0,0 +1,7 @@
+package com.example.configtracker.dto;
+
+public enum BatchItemStatus {
+  ACCEPTED,
+  DUPLICATE,
+  INVALID
+}
@@ -0,0 +1,16 @@
+package com.example.configtracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfigChangeBatchItemDTO {
+  // position of the change in the request
+  private int index;
+  private BatchItemStatus status;
+  private Long id;
+  private String message;
+}
@@ -0,0 +1,16 @@
+package com.example.configtracker.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfigChangeBatchResultDTO {
+  private int accepted;
+  private int duplicates;
+  private int invalid;
+  private List<ConfigChangeBatchItemDTO> results;
+}
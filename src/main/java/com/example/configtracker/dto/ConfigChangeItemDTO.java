@@ -0,0 +1,19 @@
+package com.example.configtracker.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfigChangeItemDTO {
+  private Long id;
+  private Long ruleTypeId;
+  private String ruleName;
+  private String currentValue;
+  private String changedBy;
+  private LocalDateTime changedAt;
+  private boolean critical;
+}
@@ -0,0 +1,15 @@
+package com.example.configtracker.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfigChangePageDTO {
+  private List<ConfigChangeItemDTO> items;
+  // null on the last page
+  private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.example.configtracker.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EffectiveValueDTO {
+  private Long ruleTypeId;
+  private String ruleName;
+  private String valueType;
+  private String currentValue;
+  // id of the change that set the value
+  private Long changeId;
+  private String changedBy;
+  private LocalDateTime changedAt;
+  private boolean critical;
+}
@@ -0,0 +1,25 @@
+package com.example.configtracker.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleTypeStatsDTO {
+  private Long ruleTypeId;
+  private String ruleName;
+  private long changes;
+  private long criticalChanges;
+  // share of changes that were critical, 0 for a rule type without changes
+  private double criticalRatio;
+  private int distinctAuthors;
+  private LocalDateTime lastChangedAt;
+  // changes per hour from windowStart up to the current hour, oldest first
+  private LocalDateTime windowStart;
+  private long changesInWindow;
+  private List<Integer> hourly;
+}
@@ -1,20 +1,70 @@
 package com.example.configtracker.entities;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class RuleType {
-  private Long id;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable: an update stores a new instance with the next {@link #version}, so readers never see
+ * a half-applied change and writers detect concurrent updates by comparing versions.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class RuleType {
+  private final Long id;
   @NotNull
   @Size(min = 3, max = 100, message = "rule name should contains between 3 and 100 characters")
   @Pattern(regexp = "^(?=.*[A-Za-z]).*$", message = "Name must contains English letters")
-  private String name;
-  private String valueType;
+  private final String name;
+  private final String valueType;
+  // 0 until stored, then 1 and up; sent back by clients in If-Match
+  private final long version;
+
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  @Getter(AccessLevel.NONE)
+  private final transient ValueValidator validator;
+
+  public RuleType(Long id, String name, String valueType) {
+    this(id, name, valueType, 0);
+  }
+
+  @JsonCreator
+  public RuleType(@JsonProperty("id") Long id, @JsonProperty("name") String name,
+      @JsonProperty("valueType") String valueType, @JsonProperty("version") long version) {
+    this.id = id;
+    this.name = name;
+    this.valueType = valueType;
+    this.version = version;
+    ValueType type = ValueType.from(valueType);
+    this.validator = type == null ? null : type.validator();
+  }
+
+  public RuleType withId(Long id) {
+    return new RuleType(id, name, valueType, version);
+  }
+
+  public RuleType withVersion(long version) {
+    return new RuleType(id, name, valueType, version);
+  }
+
+  /** The next version of this rule type, with the given name and value type. */
+  public RuleType update(String name, String valueType) {
+    return new RuleType(id, name, valueType, version + 1);
+  }
+
+  /** Validator for values of this rule, or {@code null} if {@link #valueType} is not a known type. */
+  @JsonIgnore
+  public ValueValidator getValidator() {
+    return validator;
+  }
 }
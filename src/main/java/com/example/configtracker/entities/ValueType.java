@@ -1,17 +1,86 @@
 package com.example.configtracker.entities;
 
 public enum ValueType {
-  INTEGER,
-  BOOLEAN,
-  STRING;
+  INTEGER(ValueType::checkInteger),
+  BOOLEAN(ValueType::checkBoolean),
+  STRING(ValueType::checkString);
+
+  private static final int MAX_STRING_LENGTH = 200;
+
+  private final ValueValidator validator;
+
+  ValueType(ValueValidator validator) {
+    this.validator = validator;
+  }
+
+  /** Shared validator enforcing the basic rules of this type. */
+  public ValueValidator validator() {
+    return validator;
+  }
 
   public static boolean isValid(String value) {
-    if (value == null) return false;
+    return from(value) != null;
+  }
+
+  /** Case-insensitive lookup; {@code null} if the name is not a known type. */
+  public static ValueType from(String value) {
+    if (value == null) return null;
     for (ValueType vt : values()) {
       if (vt.name().equalsIgnoreCase(value)) {
-        return true;
+        return vt;
+      }
+    }
+    return null;
+  }
+
+  // same values Integer.parseInt accepts, without throwing on the way
+  private static String checkInteger(String value) {
+    String problem = "must be an integer and not contains more than 9 digits";
+    if (value == null || value.isEmpty()) {
+      return problem;
+    }
+    int i = 0;
+    boolean negative = false;
+    char first = value.charAt(0);
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      i++;
+      if (value.length() == 1) {
+        return problem;
+      }
+    }
+    long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+    long result = 0;
+    for (; i < value.length(); i++) {
+      int digit = Character.digit(value.charAt(i), 10);
+      if (digit < 0) {
+        return problem;
+      }
+      result = result * 10 + digit;
+      if (result > limit) {
+        return problem;
+      }
+    }
+    return null;
+  }
+
+  private static String checkBoolean(String value) {
+    return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value) ? null : "must be boolean";
+  }
+
+  private static String checkString(String value) {
+    if (value == null) {
+      return "must contain at least one English letter";
+    }
+    if (value.length() > MAX_STRING_LENGTH) {
+      return "must not exceed 200 characters";
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+        return null;
       }
     }
-    return false;
+    return "must contain at least one English letter";
   }
 }
@@ -0,0 +1,27 @@
+package com.example.configtracker.entities;
+
+import java.util.Objects;
+
+/**
+ * Checks a config value against the rules of its {@link RuleType}. Implementations are immutable
+ * and are built once per rule type, so the per-change check should not allocate on success.
+ * Further constraints are added by chaining checks with {@link #and}.
+ */
+@FunctionalInterface
+public interface ValueValidator {
+
+  /**
+   * @return {@code null} if the value is acceptable, otherwise why it is not, worded to follow
+   *     "Value for rule &lt;name&gt; " (e.g. "must be boolean")
+   */
+  String check(String value);
+
+  /** Runs this check first and {@code next} only if it passes. */
+  default ValueValidator and(ValueValidator next) {
+    Objects.requireNonNull(next);
+    return value -> {
+      String problem = check(value);
+      return problem != null ? problem : next.check(value);
+    };
+  }
+}
@@ -32,6 +32,16 @@ public class MyGlobalExceptionHandler {
     return new ResponseEntity<String>(responce, HttpStatus.NOT_FOUND);
   }
 
+  @ExceptionHandler(VersionConflictException.class)
+  public ResponseEntity<String> handleVersionConflict(VersionConflictException e) {
+    return new ResponseEntity<>(e.getMessage(), HttpStatus.PRECONDITION_FAILED);
+  }
+
+  @ExceptionHandler(StoreFailedException.class)
+  public ResponseEntity<String> handleStoreFailed(StoreFailedException e) {
+    return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   @ExceptionHandler(APIException.class)
   public ResponseEntity<String> myAPIException(APIException e) {
     String message = e.getMessage();
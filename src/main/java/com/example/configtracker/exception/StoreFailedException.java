@@ -0,0 +1,9 @@
+package com.example.configtracker.exception;
+
+public class StoreFailedException extends RuntimeException {
+
+  public StoreFailedException(Throwable cause) {
+    super("Store stopped after a failed write-ahead log commit; restart to recover it from the log",
+        cause);
+  }
+}
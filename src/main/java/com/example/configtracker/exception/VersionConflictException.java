@@ -0,0 +1,16 @@
+package com.example.configtracker.exception;
+
+public class VersionConflictException extends RuntimeException {
+  String resourceName;
+  Long id;
+  long expectedVersion;
+  long currentVersion;
+
+  public VersionConflictException(String resourceName, Long id, long expectedVersion, long currentVersion) {
+    super(String.format("%s %d is at version %d, not %d", resourceName, id, currentVersion, expectedVersion));
+    this.resourceName = resourceName;
+    this.id = id;
+    this.expectedVersion = expectedVersion;
+    this.currentVersion = currentVersion;
+  }
+}
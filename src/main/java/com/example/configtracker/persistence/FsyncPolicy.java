@@ -0,0 +1,11 @@
+package com.example.configtracker.persistence;
+
+/** When the write-ahead log forces written records to disk. */
+public enum FsyncPolicy {
+  /** Every group commit is fsynced before the writes in it are acknowledged. */
+  ALWAYS,
+  /** Writes are acknowledged once written; the log is fsynced at most once per interval. */
+  INTERVAL,
+  /** Flushing is left to the operating system. */
+  NEVER
+}
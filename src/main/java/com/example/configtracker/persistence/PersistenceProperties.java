@@ -0,0 +1,18 @@
+package com.example.configtracker.persistence;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "configtracker.persistence")
+public class PersistenceProperties {
+
+  private boolean enabled = false;
+  private Path directory = Path.of("data");
+  private FsyncPolicy fsync = FsyncPolicy.ALWAYS;
+  private Duration fsyncInterval = Duration.ofMillis(100);
+  private int maxBatchSize = 1024;
+  private Duration snapshotInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,233 @@
+package com.example.configtracker.persistence;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RepositoryJournal;
+import com.example.configtracker.repo.RuleTypeRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes the in-memory repositories durable. On startup the newest usable snapshot is loaded and
+ * the write-ahead log segments written after it are replayed; afterwards every repository
+ * mutation is appended to a fresh log segment, and snapshots are taken periodically in the
+ * background so replay stays short.
+ */
+@Component
+@ConditionalOnProperty(prefix = "configtracker.persistence", name = "enabled", havingValue = "true")
+public class RepositoryPersistence implements RepositoryJournal {
+
+  // the previous snapshot and its log segments are kept as a fallback for a damaged newest one
+  private static final int SNAPSHOTS_RETAINED = 2;
+
+  private static final Logger log = LoggerFactory.getLogger(RepositoryPersistence.class);
+
+  private final PersistenceProperties properties;
+  private final ConfigChangeRepo configChangeRepo;
+  private final RuleTypeRepo ruleTypeRepo;
+  private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+
+  private volatile WriteAheadLog wal;
+  private ScheduledExecutorService snapshotScheduler;
+
+  public RepositoryPersistence(PersistenceProperties properties, ConfigChangeRepo configChangeRepo,
+      RuleTypeRepo ruleTypeRepo) {
+    this.properties = properties;
+    this.configChangeRepo = configChangeRepo;
+    this.ruleTypeRepo = ruleTypeRepo;
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    Path directory = properties.getDirectory();
+    Files.createDirectories(directory);
+    long started = System.nanoTime();
+
+    long replayFrom = restoreSnapshot(directory);
+    List<Long> segments = WriteAheadLog.segments(directory);
+    if (replayFrom == 0 && !segments.isEmpty() && segments.get(0) != 1) {
+      throw new IllegalStateException("WAL segments before " + segments.get(0)
+          + " are missing and no usable snapshot covers them");
+    }
+    long records = 0;
+    long lastSegment = 0;
+    for (long segment : segments) {
+      lastSegment = segment;
+      if (segment >= replayFrom) {
+        records += WriteAheadLog.replay(WriteAheadLog.segmentPath(directory, segment),
+            payload -> WalCodec.apply(payload, configChangeRepo, ruleTypeRepo));
+      }
+    }
+    log.info("Restored {} rule types and {} config changes ({} WAL records replayed) in {} ms",
+        ruleTypeRepo.findAll().size(), configChangeRepo.count(), records,
+        (System.nanoTime() - started) / 1_000_000);
+
+    wal = new WriteAheadLog(directory, Math.max(lastSegment + 1, replayFrom), properties);
+    configChangeRepo.setJournal(this);
+    ruleTypeRepo.setJournal(this);
+
+    Duration interval = properties.getSnapshotInterval();
+    if (interval != null && !interval.isZero() && !interval.isNegative()) {
+      snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+      });
+      snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfChanged, interval.toMillis(),
+          interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws IOException {
+    if (snapshotScheduler != null) {
+      snapshotScheduler.shutdown();
+      try {
+        snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    configChangeRepo.setJournal(RepositoryJournal.NOOP);
+    ruleTypeRepo.setJournal(RepositoryJournal.NOOP);
+    wal.close();
+  }
+
+  /**
+   * Writes a snapshot while writes continue. The log is rotated first, so every record in older
+   * segments is already applied in memory and captured; records in the new segment may or may
+   * not be captured, which is harmless because replaying them on top of the snapshot is
+   * idempotent.
+   */
+  public synchronized SnapshotFile.Header snapshot() throws IOException {
+    long started = System.nanoTime();
+    recordsSinceSnapshot.set(0);
+    long segment = wal.rotate().join();
+    Path directory = properties.getDirectory();
+    SnapshotFile.Header header = SnapshotFile.write(SnapshotFile.path(directory, segment), segment,
+        new SnapshotFile.Contents() {
+          @Override
+          public long changeSequence() {
+            return configChangeRepo.getSequence();
+          }
+
+          @Override
+          public long ruleTypeSequence() {
+            return ruleTypeRepo.getSequence();
+          }
+
+          @Override
+          public void forEachRuleType(Consumer<RuleType> action) {
+            ruleTypeRepo.findAll().forEach(action);
+          }
+
+          @Override
+          public void forEachChange(Consumer<ConfigChange> action) {
+            configChangeRepo.forEach(action);
+          }
+        });
+    deleteObsoleteFiles(directory);
+    log.info("Wrote snapshot of {} rule types and {} config changes at WAL segment {} in {} ms",
+        header.ruleTypeCount(), header.changeCount(), segment, (System.nanoTime() - started) / 1_000_000);
+    return header;
+  }
+
+  private void snapshotIfChanged() {
+    if (recordsSinceSnapshot.get() == 0) {
+      return;
+    }
+    try {
+      snapshot();
+    } catch (IOException | RuntimeException e) {
+      log.error("Failed to write snapshot", e);
+    }
+  }
+
+  /** Loads the newest snapshot that verifies and returns the first WAL segment it does not cover. */
+  private long restoreSnapshot(Path directory) throws IOException {
+    for (long segment : SnapshotFile.snapshots(directory)) {
+      Path file = SnapshotFile.path(directory, segment);
+      try {
+        SnapshotFile.Header header = SnapshotFile.read(file, ruleTypeRepo::save, configChangeRepo::save);
+        configChangeRepo.advanceSequence(header.changeSequence());
+        ruleTypeRepo.advanceSequence(header.ruleTypeSequence());
+        return segment;
+      } catch (IOException | RuntimeException e) {
+        // a file that cannot be mapped or read is as unusable as one that fails its checksum
+        log.error("Skipping unusable snapshot {}", file, e);
+        // it may have failed after loading some records; the next one starts from empty repositories
+        configChangeRepo.clear();
+        ruleTypeRepo.clear();
+      }
+    }
+    return 0;
+  }
+
+  private void deleteObsoleteFiles(Path directory) throws IOException {
+    List<Long> snapshots = SnapshotFile.snapshots(directory);
+    if (snapshots.size() < SNAPSHOTS_RETAINED) {
+      return;
+    }
+    long oldestNeeded = snapshots.get(SNAPSHOTS_RETAINED - 1);
+    for (long snapshot : snapshots.subList(SNAPSHOTS_RETAINED, snapshots.size())) {
+      Files.deleteIfExists(SnapshotFile.path(directory, snapshot));
+    }
+    for (long segment : WriteAheadLog.segments(directory)) {
+      if (segment < oldestNeeded) {
+        Files.deleteIfExists(WriteAheadLog.segmentPath(directory, segment));
+      }
+    }
+  }
+
+  private CompletableFuture<Void> append(byte[] payload) {
+    recordsSinceSnapshot.incrementAndGet();
+    return wal.append(payload);
+  }
+
+  @Override
+  public CompletableFuture<Void> changeSaved(ConfigChange change) {
+    return append(WalCodec.changeSaved(change));
+  }
+
+  @Override
+  public CompletableFuture<Void> changeDeleted(Long id) {
+    return append(WalCodec.changeDeleted(id));
+  }
+
+  @Override
+  public CompletableFuture<Void> ruleTypeSaved(RuleType ruleType) {
+    return append(WalCodec.ruleTypeSaved(ruleType));
+  }
+
+  @Override
+  public CompletableFuture<Void> ruleTypeDeleted(Long id) {
+    return append(WalCodec.ruleTypeDeleted(id));
+  }
+
+  @Override
+  public CompletableFuture<Void> ruleTypesCleared() {
+    return append(WalCodec.ruleTypesCleared());
+  }
+
+  @Override
+  public Throwable failure() {
+    WriteAheadLog current = wal;
+    return current == null ? null : current.failure();
+  }
+}
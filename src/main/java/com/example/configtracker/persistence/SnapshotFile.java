@@ -0,0 +1,249 @@
+package com.example.configtracker.persistence;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of both repositories.
+ *
+ * <p>Layout: a fixed 64-byte header (magic, format version, first WAL segment to replay on top of
+ * the snapshot, creation time, both id sequences, record counts and the CRC32 of the body),
+ * followed by all rule type records and then all config change records in the WAL entity
+ * encoding. Loading memory-maps the file, at most {@link #MAX_WINDOW} bytes at a time since a
+ * mapping is int-indexed, and decodes records straight from the mapping.
+ */
+public final class SnapshotFile {
+
+  static final int MAGIC = 0x4354534E; // "CTSN"
+  // 2 added rule type versions; version 1 snapshots still load
+  static final int FORMAT_VERSION = 2;
+  static final int HEADER_SIZE = 64;
+  static final long MAX_WINDOW = Integer.MAX_VALUE;
+
+  private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+  private SnapshotFile() {
+  }
+
+  /** Snapshot metadata from the file header. */
+  public record Header(long walSegment, long createdAt, long changeSequence, long ruleTypeSequence,
+      long ruleTypeCount, long changeCount, int checksum) {
+  }
+
+  /** Source of the repository contents while a snapshot is written. */
+  public interface Contents {
+    long changeSequence();
+
+    long ruleTypeSequence();
+
+    void forEachRuleType(Consumer<RuleType> action);
+
+    void forEachChange(Consumer<ConfigChange> action);
+  }
+
+  public static Path path(Path directory, long walSegment) {
+    return directory.resolve(String.format("snapshot-%016d.bin", walSegment));
+  }
+
+  /** Returns the WAL segment numbers of the snapshots in {@code directory}, newest first. */
+  public static List<Long> snapshots(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> SNAPSHOT_NAME.matcher(path.getFileName().toString()))
+          .filter(Matcher::matches)
+          .map(matcher -> Long.parseLong(matcher.group(1)))
+          .sorted((a, b) -> Long.compare(b, a))
+          .toList();
+    }
+  }
+
+  /**
+   * Writes a snapshot to a temporary file and moves it into place once it is complete and forced
+   * to disk, so a crash never leaves a partial snapshot under the final name.
+   */
+  public static Header write(Path target, long walSegment, Contents contents) throws IOException {
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    Header header;
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      channel.position(HEADER_SIZE);
+      CRC32 crc = new CRC32();
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 20));
+      long changeSequence = contents.changeSequence();
+      long ruleTypeSequence = contents.ruleTypeSequence();
+      long[] counts = new long[2];
+      contents.forEachRuleType(ruleType -> {
+        write(() -> WalCodec.writeRuleType(out, ruleType));
+        counts[0]++;
+      });
+      contents.forEachChange(change -> {
+        write(() -> WalCodec.writeChange(out, change));
+        counts[1]++;
+      });
+      out.flush();
+
+      header = new Header(walSegment, System.currentTimeMillis(), changeSequence, ruleTypeSequence,
+          counts[0], counts[1], (int) crc.getValue());
+      ByteBuffer encoded = encode(header);
+      channel.write(encoded, 0);
+      channel.force(true);
+    }
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    return header;
+  }
+
+  /** Reads the header and checks the body checksum and record counts without keeping anything. */
+  public static Header verify(Path file) throws IOException {
+    return read(file, ruleType -> {
+    }, change -> {
+    });
+  }
+
+  /**
+   * Verifies the snapshot, then feeds its records to the consumers. Nothing is passed on unless
+   * the whole file checks out.
+   */
+  public static Header read(Path file, Consumer<RuleType> ruleTypes, Consumer<ConfigChange> changes)
+      throws IOException {
+    return read(file, ruleTypes, changes, MAX_WINDOW);
+  }
+
+  /** {@link #read} mapping at most {@code windowSize} bytes of the file at a time. */
+  public static Header read(Path file, Consumer<RuleType> ruleTypes, Consumer<ConfigChange> changes,
+      long windowSize) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE) {
+        throw new IllegalStateException("Snapshot " + file + " is truncated");
+      }
+      ByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      Header header = decode(file, head);
+      boolean versioned = head.getInt(4) >= 2;
+
+      CRC32 crc = new CRC32();
+      for (long position = HEADER_SIZE; position < size; position += windowSize) {
+        crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position)));
+      }
+      if ((int) crc.getValue() != header.checksum()) {
+        throw new IllegalStateException("Snapshot " + file + " failed checksum verification");
+      }
+
+      Body body = new Body(channel, size, windowSize);
+      try {
+        for (long i = 0; i < header.ruleTypeCount(); i++) {
+          ruleTypes.accept(body.next(in -> WalCodec.readRuleType(in, versioned)));
+        }
+        for (long i = 0; i < header.changeCount(); i++) {
+          changes.accept(body.next(WalCodec::readChange));
+        }
+      } catch (RuntimeException e) {
+        throw new IllegalStateException("Snapshot " + file + " does not match its header", e);
+      }
+      if (body.remaining() > 0) {
+        throw new IllegalStateException("Snapshot " + file + " has " + body.remaining() + " unexpected trailing bytes");
+      }
+      return header;
+    }
+  }
+
+  private static ByteBuffer encode(Header header) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+    buffer.putInt(MAGIC)
+        .putInt(FORMAT_VERSION)
+        .putLong(header.walSegment())
+        .putLong(header.createdAt())
+        .putLong(header.changeSequence())
+        .putLong(header.ruleTypeSequence())
+        .putLong(header.ruleTypeCount())
+        .putLong(header.changeCount())
+        .putInt(header.checksum());
+    return buffer.clear();
+  }
+
+  private static Header decode(Path file, ByteBuffer buffer) {
+    int magic = buffer.getInt(0);
+    int version = buffer.getInt(4);
+    if (magic != MAGIC || version < 1 || version > FORMAT_VERSION) {
+      throw new IllegalStateException("Unsupported snapshot " + file + " (version " + version + ")");
+    }
+    return new Header(buffer.getLong(8), buffer.getLong(16), buffer.getLong(24), buffer.getLong(32),
+        buffer.getLong(40), buffer.getLong(48), buffer.getInt(56));
+  }
+
+  /**
+   * The records after the header, mapped one window at a time. A record cut off by the end of a
+   * window is decoded again from a window that starts with it.
+   */
+  private static final class Body {
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    // file offset of the window's first byte
+    private long start;
+    private ByteBuffer window;
+
+    Body(FileChannel channel, long size, long windowSize) throws IOException {
+      this.channel = channel;
+      this.size = size;
+      this.windowSize = windowSize;
+      map(HEADER_SIZE);
+    }
+
+    <T> T next(Function<ByteBuffer, T> decoder) throws IOException {
+      int recordStart = window.position();
+      try {
+        return decoder.apply(window);
+      } catch (BufferUnderflowException e) {
+        if (start + window.limit() == size) {
+          throw e;
+        }
+        map(start + recordStart);
+        return decoder.apply(window);
+      }
+    }
+
+    long remaining() {
+      return size - start - window.position();
+    }
+
+    private void map(long from) throws IOException {
+      start = from;
+      window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(windowSize, size - from));
+    }
+  }
+
+  private static void write(IoAction action) {
+    try {
+      action.run();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private interface IoAction {
+    void run() throws IOException;
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.configtracker.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline maintenance for the persistence directory. Run it while the service is stopped:
+ *
+ * <pre>
+ * verify &lt;snapshot-file&gt;             check a snapshot's header, checksum and record counts
+ * restore &lt;snapshot-file&gt; &lt;data-dir&gt;  make the snapshot the only state in data-dir; existing
+ *                                      snapshots and log segments are moved to a backup folder
+ * </pre>
+ */
+public final class SnapshotTool {
+
+  private SnapshotTool() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 2 && args[0].equals("verify")) {
+      verify(Path.of(args[1]));
+    } else if (args.length == 3 && args[0].equals("restore")) {
+      restore(Path.of(args[1]), Path.of(args[2]));
+    } else {
+      System.err.println("Usage: SnapshotTool verify <snapshot-file>");
+      System.err.println("       SnapshotTool restore <snapshot-file> <data-dir>");
+      System.exit(2);
+    }
+  }
+
+  private static SnapshotFile.Header verify(Path snapshot) throws IOException {
+    SnapshotFile.Header header;
+    try {
+      header = SnapshotFile.verify(snapshot);
+    } catch (IllegalStateException | IOException e) {
+      System.err.println("INVALID: " + e.getMessage());
+      System.exit(1);
+      return null;
+    }
+    System.out.println("OK: " + snapshot);
+    System.out.println("  created:            " + Instant.ofEpochMilli(header.createdAt()));
+    System.out.println("  replays WAL from:   segment " + header.walSegment());
+    System.out.println("  rule types:         " + header.ruleTypeCount());
+    System.out.println("  config changes:     " + header.changeCount());
+    System.out.println("  rule type sequence: " + header.ruleTypeSequence());
+    System.out.println("  change sequence:    " + header.changeSequence());
+    return header;
+  }
+
+  private static void restore(Path snapshot, Path directory) throws IOException {
+    SnapshotFile.Header header = verify(snapshot);
+    Files.createDirectories(directory);
+
+    List<Path> existing = new ArrayList<>();
+    for (long segment : SnapshotFile.snapshots(directory)) {
+      existing.add(SnapshotFile.path(directory, segment));
+    }
+    for (long segment : WriteAheadLog.segments(directory)) {
+      existing.add(WriteAheadLog.segmentPath(directory, segment));
+    }
+    Path copy = Files.copy(snapshot, directory.resolve("restore.tmp"), StandardCopyOption.REPLACE_EXISTING);
+    if (!existing.isEmpty()) {
+      Path backup = directory.resolve("backup-"
+          + LocalDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+      Files.createDirectories(backup);
+      for (Path file : existing) {
+        Files.move(file, backup.resolve(file.getFileName()));
+      }
+      System.out.println("Moved " + existing.size() + " existing files to " + backup);
+    }
+    Path target = SnapshotFile.path(directory, header.walSegment());
+    Files.move(copy, target, StandardCopyOption.ATOMIC_MOVE);
+    System.out.println("Restored " + target);
+  }
+}
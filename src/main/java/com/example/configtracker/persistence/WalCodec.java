@@ -0,0 +1,169 @@
+package com.example.configtracker.persistence;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RuleTypeRepo;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary encoding of repository mutations. Each payload starts with a record type byte followed
+ * by the fields of the affected entity; strings are length-prefixed UTF-8 with -1 for null.
+ */
+final class WalCodec {
+
+  static final byte CHANGE_SAVED = 1;
+  static final byte CHANGE_DELETED = 2;
+  static final byte RULE_TYPE_SAVED = 3;
+  static final byte RULE_TYPE_DELETED = 4;
+  static final byte RULE_TYPES_CLEARED = 5;
+  // rule type records with a version; type 3 records predate versions and load as version 1
+  static final byte RULE_TYPE_VERSION_SAVED = 6;
+
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+  private WalCodec() {
+  }
+
+  static byte[] changeSaved(ConfigChange change) {
+    return encode(CHANGE_SAVED, out -> writeChange(out, change));
+  }
+
+  static byte[] changeDeleted(Long id) {
+    return encode(CHANGE_DELETED, out -> out.writeLong(id));
+  }
+
+  static byte[] ruleTypeSaved(RuleType ruleType) {
+    return encode(RULE_TYPE_VERSION_SAVED, out -> writeRuleType(out, ruleType));
+  }
+
+  static byte[] ruleTypeDeleted(Long id) {
+    return encode(RULE_TYPE_DELETED, out -> out.writeLong(id));
+  }
+
+  static byte[] ruleTypesCleared() {
+    return encode(RULE_TYPES_CLEARED, out -> {
+    });
+  }
+
+  /** Re-applies one logged mutation to the repositories. */
+  static void apply(ByteBuffer payload, ConfigChangeRepo changes, RuleTypeRepo ruleTypes) {
+    byte type = payload.get();
+    switch (type) {
+      case CHANGE_SAVED -> changes.save(readChange(payload));
+      case CHANGE_DELETED -> changes.deleteById(payload.getLong());
+      case RULE_TYPE_SAVED -> ruleTypes.save(readRuleType(payload, false));
+      case RULE_TYPE_VERSION_SAVED -> ruleTypes.save(readRuleType(payload, true));
+      case RULE_TYPE_DELETED -> ruleTypes.deleteById(payload.getLong());
+      case RULE_TYPES_CLEARED -> ruleTypes.clear();
+      default -> throw new IllegalStateException("Unknown WAL record type " + type);
+    }
+  }
+
+  static void writeChange(DataOutput out, ConfigChange change) throws IOException {
+    out.writeLong(change.getId());
+    out.writeLong(change.getRuleTypeId());
+    writeString(out, change.getCurrentValue());
+    writeString(out, change.getChangedBy());
+    writeDateTime(out, change.getChangedAt());
+    out.writeBoolean(change.isCritical());
+  }
+
+  static ConfigChange readChange(ByteBuffer in) {
+    ConfigChange change = new ConfigChange();
+    change.setId(in.getLong());
+    change.setRuleTypeId(in.getLong());
+    change.setCurrentValue(readString(in));
+    change.setChangedBy(readString(in));
+    change.setChangedAt(readDateTime(in));
+    change.setCritical(in.get() != 0);
+    return change;
+  }
+
+  static void writeRuleType(DataOutput out, RuleType ruleType) throws IOException {
+    out.writeLong(ruleType.getId());
+    writeString(out, ruleType.getName());
+    writeString(out, ruleType.getValueType());
+    out.writeLong(ruleType.getVersion());
+  }
+
+  static RuleType readRuleType(ByteBuffer in, boolean versioned) {
+    long id = in.getLong();
+    String name = readString(in);
+    String valueType = readString(in);
+    return new RuleType(id, name, valueType, versioned ? in.getLong() : 1);
+  }
+
+  static void writeString(DataOutput out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length < 0) {
+      return null;
+    }
+    String value;
+    if (in.hasArray()) {
+      value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+      in.position(in.position() + length);
+    } else {
+      // memory-mapped snapshots: copy through a reused buffer instead of a fresh array per string
+      byte[] bytes = SCRATCH.get();
+      if (bytes.length < length) {
+        bytes = new byte[Math.max(length, bytes.length * 2)];
+        SCRATCH.set(bytes);
+      }
+      in.get(bytes, 0, length);
+      value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+    return value;
+  }
+
+  private static void writeDateTime(DataOutput out, LocalDateTime time) throws IOException {
+    out.writeBoolean(time != null);
+    if (time != null) {
+      out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(time.getNano());
+    }
+  }
+
+  private static LocalDateTime readDateTime(ByteBuffer in) {
+    if (in.get() == 0) {
+      return null;
+    }
+    long seconds = in.getLong();
+    int nanos = in.getInt();
+    return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+  }
+
+  private static byte[] encode(byte type, Fields fields) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeByte(type);
+      fields.write(out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private interface Fields {
+    void write(DataOutput out) throws IOException;
+  }
+}
@@ -0,0 +1,333 @@
+package com.example.configtracker.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of repository mutations, split into numbered segment files.
+ *
+ * <p>A segment starts with a magic number and format version, followed by frames of
+ * {@code [payload length][CRC32 of length and payload][payload]} (format 1 checksummed only the
+ * payload). Appends are queued and written by a single
+ * writer thread that drains everything queued so far into one write (group commit), then forces
+ * the file according to the configured {@link FsyncPolicy} before completing the futures.
+ *
+ * <p>The first failed write or force stops the log: that batch and every later append fail, so
+ * the segment never gets a gap or a torn frame in the middle that replay would reject.
+ */
+public class WriteAheadLog implements Closeable {
+
+  static final int MAGIC = 0x43545741; // "CTWA"
+  static final int FORMAT_VERSION = 2;
+  static final int HEADER_SIZE = 8;
+  static final int FRAME_HEADER_SIZE = 8;
+  // a longer frame running past the end of a segment is a damaged length, not a torn write
+  static final int MAX_TORN_RECORD_SIZE = 64 << 20;
+
+  private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+  private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+  private final Path directory;
+  private final FsyncPolicy fsyncPolicy;
+  private final long fsyncIntervalNanos;
+  private final int maxBatchSize;
+  private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private final CRC32 crc = new CRC32();
+
+  private final AtomicLong segment;
+
+  private volatile boolean open = true;
+  private volatile Throwable failure;
+  private FileChannel channel;
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+  private long lastForce = System.nanoTime();
+  private boolean dirty;
+
+  // an entry without payload is a request to continue in segment number `rotateTo`
+  private record Entry(byte[] payload, CompletableFuture<Void> done, long rotateTo) {
+  }
+
+  public WriteAheadLog(Path directory, long segment, PersistenceProperties properties)
+      throws IOException {
+    this.directory = directory;
+    this.fsyncPolicy = properties.getFsync();
+    this.fsyncIntervalNanos = Math.max(properties.getFsyncInterval().toNanos(), TimeUnit.MILLISECONDS.toNanos(1));
+    this.maxBatchSize = properties.getMaxBatchSize();
+    this.segment = new AtomicLong(segment);
+    this.channel = createSegment(directory, segment);
+    this.writer = new Thread(this::writeLoop, "wal-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /** Queues a record; the future completes once it is written (and forced, if the policy says so). */
+  public CompletableFuture<Void> append(byte[] payload) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    if (!open) {
+      done.completeExceptionally(new IllegalStateException("Write-ahead log is closed"));
+      return done;
+    }
+    if (failure != null) {
+      done.completeExceptionally(failure);
+      return done;
+    }
+    queue.add(new Entry(payload, done, 0));
+    return done;
+  }
+
+  /** The error that stopped the log, or {@code null} while it is writing. */
+  public Throwable failure() {
+    return failure;
+  }
+
+  /**
+   * Closes the current segment after everything queued before this call and continues in a new
+   * one. The future yields the new segment number once it is in use; every record appended after
+   * this call lands in that segment or a later one.
+   */
+  public CompletableFuture<Long> rotate() {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    long next;
+    synchronized (segment) {
+      next = segment.incrementAndGet();
+      queue.add(new Entry(null, done, next));
+    }
+    return done.thenApply(v -> next);
+  }
+
+  @Override
+  public void close() throws IOException {
+    open = false;
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // appends that raced with close and were never picked up by the writer
+    List<Entry> rejected = new ArrayList<>();
+    queue.drainTo(rejected);
+    rejected.forEach(entry -> entry.done().completeExceptionally(
+        new IllegalStateException("Write-ahead log is closed")));
+    channel.force(false);
+    channel.close();
+  }
+
+  public static Path segmentPath(Path directory, long segment) {
+    return directory.resolve(String.format("wal-%016d.log", segment));
+  }
+
+  /** Returns the segment numbers present in {@code directory}, in ascending order. */
+  public static List<Long> segments(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+          .filter(Matcher::matches)
+          .map(matcher -> Long.parseLong(matcher.group(1)))
+          .sorted()
+          .toList();
+    }
+  }
+
+  /**
+   * Feeds every intact record of a segment to {@code handler}, in order. A frame cut short by a
+   * crash at the end of the segment is truncated away; a bad checksum or length anywhere before
+   * the end means the log is corrupt and replay stops with an exception rather than skipping
+   * history.
+   * The buffer passed to the handler is reused and must not be retained.
+   *
+   * @return the number of records replayed
+   */
+  public static long replay(Path segment, Consumer<ByteBuffer> handler) throws IOException {
+    long count = 0;
+    try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long size = file.size();
+      if (size < HEADER_SIZE) {
+        log.warn("Ignoring WAL segment {} with incomplete header", segment);
+        file.truncate(0);
+        return 0;
+      }
+      DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Channels.newInputStream(file), 1 << 20));
+      int magic = in.readInt();
+      int version = in.readInt();
+      if (magic != MAGIC || version < 1 || version > FORMAT_VERSION) {
+        throw new IllegalStateException("Unsupported WAL segment " + segment + " (version " + version + ")");
+      }
+
+      CRC32 crc = new CRC32();
+      byte[] frame = new byte[4096];
+      long position = HEADER_SIZE;
+      while (size - position >= FRAME_HEADER_SIZE) {
+        int length = in.readInt();
+        int checksum = in.readInt();
+        long end = position + FRAME_HEADER_SIZE + length;
+        if (length < 0 || (end > size && length > MAX_TORN_RECORD_SIZE)) {
+          throw new IllegalStateException("Corrupt WAL record length " + length + " in " + segment
+              + " at offset " + position);
+        }
+        if (end > size) {
+          break;
+        }
+        if (frame.length < length) {
+          frame = new byte[Math.max(length, frame.length * 2)];
+        }
+        in.readFully(frame, 0, length);
+        crc.reset();
+        if (version > 1) {
+          updateInt(crc, length);
+        }
+        crc.update(frame, 0, length);
+        if ((int) crc.getValue() != checksum) {
+          if (end == size) {
+            break;
+          }
+          throw new IllegalStateException("Corrupt WAL record in " + segment + " at offset " + position);
+        }
+        handler.accept(ByteBuffer.wrap(frame, 0, length));
+        position = end;
+        count++;
+      }
+      if (position < size) {
+        log.warn("Truncating {} bytes of incomplete WAL record at the end of {}", size - position, segment);
+        file.truncate(position);
+      }
+    }
+    return count;
+  }
+
+  private static FileChannel createSegment(Path directory, long segment) throws IOException {
+    Files.createDirectories(directory);
+    FileChannel channel = FileChannel.open(segmentPath(directory, segment),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+    channel.force(true);
+    return channel;
+  }
+
+  private void writeLoop() {
+    List<Entry> batch = new ArrayList<>();
+    while (open || !queue.isEmpty()) {
+      try {
+        Entry first = queue.poll(fsyncIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+          if (failure == null) {
+            forceIfDue();
+          }
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, maxBatchSize - 1);
+        if (failure != null) {
+          batch.forEach(entry -> entry.done().completeExceptionally(failure));
+        } else {
+          writeBatches(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (IOException | RuntimeException e) {
+        log.error("Failed to write {} WAL records; rejecting all further records", batch.size(), e);
+        // published before the futures complete, so a failed writer finds the store already stopped
+        failure = e;
+        batch.forEach(entry -> entry.done().completeExceptionally(e));
+      }
+      batch.clear();
+    }
+  }
+
+  private void writeBatches(List<Entry> entries) throws IOException {
+    int start = 0;
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.payload() == null) {
+        writeBatch(entries.subList(start, i));
+        force();
+        FileChannel next = createSegment(directory, entry.rotateTo());
+        channel.close();
+        channel = next;
+        entry.done().complete(null);
+        start = i + 1;
+      }
+    }
+    writeBatch(entries.subList(start, entries.size()));
+  }
+
+  private void writeBatch(List<Entry> batch) throws IOException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    int size = 0;
+    for (Entry entry : batch) {
+      size += FRAME_HEADER_SIZE + entry.payload().length;
+    }
+    if (buffer.capacity() < size) {
+      buffer = ByteBuffer.allocateDirect(Math.max(size, buffer.capacity() * 2));
+    }
+    buffer.clear();
+    for (Entry entry : batch) {
+      byte[] payload = entry.payload();
+      crc.reset();
+      updateInt(crc, payload.length);
+      crc.update(payload);
+      buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    dirty = true;
+    if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+      force();
+    } else {
+      forceIfDue();
+    }
+    batch.forEach(entry -> entry.done().complete(null));
+  }
+
+  private static void updateInt(CRC32 crc, int value) {
+    crc.update(value >>> 24);
+    crc.update(value >>> 16);
+    crc.update(value >>> 8);
+    crc.update(value);
+  }
+
+  private void forceIfDue() throws IOException {
+    if (fsyncPolicy == FsyncPolicy.INTERVAL && dirty && System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+      force();
+    }
+  }
+
+  private void force() throws IOException {
+    channel.force(false);
+    lastForce = System.nanoTime();
+    dirty = false;
+  }
+}
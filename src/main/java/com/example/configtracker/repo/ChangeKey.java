@@ -0,0 +1,53 @@
+package com.example.configtracker.repo;
+
+import com.example.configtracker.entities.ConfigChange;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Position of a config change in time order. Timestamps are kept as UTC epoch nanoseconds so the
+ * key holds no object references; the id breaks ties between changes made at the same instant.
+ */
+public record ChangeKey(long changedAt, long id) implements Comparable<ChangeKey> {
+
+  public static ChangeKey of(ConfigChange change) {
+    return new ChangeKey(toEpochNanos(change.getChangedAt()), change.getId());
+  }
+
+  /** Smallest key strictly after every change made at or before {@code time}. */
+  static ChangeKey after(LocalDateTime time) {
+    return new ChangeKey(toEpochNanos(time), Long.MAX_VALUE);
+  }
+
+  /** Smallest key made at {@code time}; every change made before it sorts lower. */
+  static ChangeKey before(LocalDateTime time) {
+    return new ChangeKey(toEpochNanos(time), Long.MIN_VALUE);
+  }
+
+  public static long toEpochNanos(LocalDateTime time) {
+    if (time == null) {
+      return Long.MIN_VALUE;
+    }
+    long seconds = time.toEpochSecond(ZoneOffset.UTC);
+    try {
+      return Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), time.getNano());
+    } catch (ArithmeticException e) {
+      return seconds < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+  }
+
+  /** Inverse of {@link #toEpochNanos}. */
+  public static LocalDateTime fromEpochNanos(long nanos) {
+    if (nanos == Long.MIN_VALUE) {
+      return null;
+    }
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+        (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+  }
+
+  @Override
+  public int compareTo(ChangeKey other) {
+    int byTime = Long.compare(changedAt, other.changedAt);
+    return byTime != 0 ? byTime : Long.compare(id, other.id);
+  }
+}
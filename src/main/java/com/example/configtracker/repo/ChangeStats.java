@@ -0,0 +1,31 @@
+package com.example.configtracker.repo;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Aggregates of one rule type's stored changes. {@code hourly} holds the number of changes made in
+ * each hour of the window ending with the hour of {@code now}, oldest first, and
+ * {@code windowStart} is the start of its first hour.
+ */
+public record ChangeStats(long changes, long criticalChanges, int distinctAuthors,
+    LocalDateTime lastChangedAt, LocalDateTime windowStart, int[] hourly) {
+
+  /** Longest window, in hours, that per-hour counts are kept for. */
+  public static final int MAX_HOURS = 7 * 24;
+
+  /** Stats of a rule type without changes. */
+  public static ChangeStats none(LocalDateTime now, int hours) {
+    return new ChangeStats(0, 0, 0, null, now.truncatedTo(ChronoUnit.HOURS).minusHours(hours - 1),
+        new int[hours]);
+  }
+
+  /** Changes made in the window. */
+  public long changesInWindow() {
+    long sum = 0;
+    for (int count : hourly) {
+      sum += count;
+    }
+    return sum;
+  }
+}
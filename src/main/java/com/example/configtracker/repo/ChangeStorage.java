@@ -0,0 +1,33 @@
+package com.example.configtracker.repo;
+
+import com.example.configtracker.entities.ConfigChange;
+import java.util.function.Consumer;
+
+/**
+ * Row storage behind {@link ConfigChangeRepo}, keyed by change id. Implementations are
+ * thread-safe; the repository's lock stripes keep a row and its index entries consistent. The
+ * repository acquires a row's dictionary codes before putting it and releases them only after
+ * the row is removed, so a stored row never refers to a released code.
+ */
+interface ChangeStorage {
+
+  ConfigChange get(long id);
+
+  boolean contains(long id);
+
+  /** Stores the change, replacing any row with the same id, and returns the replaced row. */
+  ConfigChange put(ConfigChange change);
+
+  /** Removes the row and returns it, or {@code null} if there was none. */
+  ConfigChange remove(long id);
+
+  long size();
+
+  void forEach(Consumer<ConfigChange> action);
+
+  /**
+   * Releases space still held by removed rows, without blocking readers or writers for more than a
+   * brief swap, and returns the bytes of row storage freed.
+   */
+  long compact();
+}
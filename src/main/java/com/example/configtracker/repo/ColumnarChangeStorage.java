@@ -0,0 +1,276 @@
+package com.example.configtracker.repo;
+
+import com.example.configtracker.entities.ConfigChange;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps change rows in parallel primitive arrays instead of one object graph per change: ids,
+ * rule type ids and timestamps (UTC epoch nanoseconds) as {@code long} columns, values and
+ * authors as dictionary codes in {@code int} columns, criticality as a bit set. Rows are appended;
+ * a removed row becomes a dead slot until the columns are compacted. {@link ConfigChange} objects
+ * are only created when a row is read.
+ */
+class ColumnarChangeStorage implements ChangeStorage {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int ROW_BYTES = 3 * Long.BYTES + 2 * Integer.BYTES;
+  // rows copied per read lock hold while compacting
+  private static final int COMPACTION_CHUNK = 4096;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicInteger iterations = new AtomicInteger();
+  private LongIntHashMap rowById;
+
+  private long[] ids;
+  private long[] ruleTypeIds;
+  private long[] changedAt;
+  private int[] valueCodes;
+  private int[] authorCodes;
+  private BitSet critical = new BitSet();
+  private BitSet dead = new BitSet();
+  private int rows;
+  // ids removed while compact() copies the columns; null when no compaction is running
+  private List<Long> removedDuringCompaction;
+
+  private final StringDictionary currentValues;
+  private final StringDictionary authors;
+
+  ColumnarChangeStorage(StringDictionary currentValues, StringDictionary authors) {
+    this(currentValues, authors, INITIAL_CAPACITY);
+  }
+
+  private ColumnarChangeStorage(StringDictionary currentValues, StringDictionary authors, int capacity) {
+    this.currentValues = currentValues;
+    this.authors = authors;
+    rowById = new LongIntHashMap(capacity);
+    ids = new long[capacity];
+    ruleTypeIds = new long[capacity];
+    changedAt = new long[capacity];
+    valueCodes = new int[capacity];
+    authorCodes = new int[capacity];
+  }
+
+  @Override
+  public ConfigChange get(long id) {
+    lock.readLock().lock();
+    try {
+      int row = rowById.get(id);
+      return row == LongIntHashMap.MISSING ? null : materialize(row);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean contains(long id) {
+    lock.readLock().lock();
+    try {
+      return rowById.get(id) != LongIntHashMap.MISSING;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public ConfigChange put(ConfigChange change) {
+    lock.writeLock().lock();
+    try {
+      ConfigChange previous = removeRow(change.getId());
+      append(change.getId(), change.getRuleTypeId(), ChangeKey.toEpochNanos(change.getChangedAt()),
+          currentValues.find(change.getCurrentValue()), authors.find(change.getChangedBy()),
+          change.isCritical());
+      return previous;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public ConfigChange remove(long id) {
+    lock.writeLock().lock();
+    try {
+      return removeRow(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public long size() {
+    lock.readLock().lock();
+    try {
+      return rowById.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void forEach(Consumer<ConfigChange> action) {
+    // rows are visited by position, which a compaction must not shift under us
+    iterations.incrementAndGet();
+    try {
+      visitRows(action);
+    } finally {
+      iterations.decrementAndGet();
+    }
+  }
+
+  private void visitRows(Consumer<ConfigChange> action) {
+    // materialize in chunks so the action never runs under the lock
+    ConfigChange[] chunk = new ConfigChange[256];
+    int next = 0;
+    while (true) {
+      int count = 0;
+      lock.readLock().lock();
+      try {
+        while (next < rows && count < chunk.length) {
+          if (!dead.get(next)) {
+            chunk[count++] = materialize(next);
+          }
+          next++;
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+      if (count == 0) {
+        return;
+      }
+      for (int i = 0; i < count; i++) {
+        action.accept(chunk[i]);
+      }
+    }
+  }
+
+  /**
+   * Rewrites the columns without their dead slots once those make up a quarter of the rows. Live
+   * rows are copied in chunks under the read lock, so writers wait at most one chunk at a time and
+   * only the final swap, which also applies the rows added and removed during the copy, takes the
+   * write lock. A compaction that would move rows under a running {@link #forEach} is abandoned
+   * and retried on the next call.
+   */
+  @Override
+  public long compact() {
+    int copied;
+    int deadRows;
+    lock.writeLock().lock();
+    try {
+      deadRows = dead.cardinality();
+      if (removedDuringCompaction != null || deadRows < Math.max(INITIAL_CAPACITY, rows / 4)) {
+        return 0;
+      }
+      copied = rows;
+      removedDuringCompaction = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    int live = copied - deadRows;
+    ColumnarChangeStorage compacted = new ColumnarChangeStorage(currentValues, authors,
+        Math.max(INITIAL_CAPACITY, live + live / 4));
+    for (int next = 0; next < copied; ) {
+      lock.readLock().lock();
+      try {
+        for (int end = Math.min(copied, next + COMPACTION_CHUNK); next < end; next++) {
+          if (!dead.get(next)) {
+            compacted.copyRow(this, next);
+          }
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      List<Long> removed = removedDuringCompaction;
+      removedDuringCompaction = null;
+      if (iterations.get() > 0) {
+        return 0;
+      }
+      for (long id : removed) {
+        compacted.killRow(id);
+      }
+      for (int row = copied; row < rows; row++) {
+        if (!dead.get(row)) {
+          compacted.copyRow(this, row);
+        }
+      }
+      long freed = (long) (ids.length - compacted.ids.length) * ROW_BYTES;
+      ids = compacted.ids;
+      ruleTypeIds = compacted.ruleTypeIds;
+      changedAt = compacted.changedAt;
+      valueCodes = compacted.valueCodes;
+      authorCodes = compacted.authorCodes;
+      critical = compacted.critical;
+      dead = compacted.dead;
+      rowById = compacted.rowById;
+      rows = compacted.rows;
+      return Math.max(freed, 0);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private ConfigChange removeRow(long id) {
+    int row = rowById.get(id);
+    if (row == LongIntHashMap.MISSING) {
+      return null;
+    }
+    ConfigChange removed = materialize(row);
+    killRow(id);
+    return removed;
+  }
+
+  private void killRow(long id) {
+    int row = rowById.remove(id);
+    if (row == LongIntHashMap.MISSING) {
+      return;
+    }
+    dead.set(row);
+    if (removedDuringCompaction != null) {
+      removedDuringCompaction.add(id);
+    }
+  }
+
+  private void append(long id, long ruleTypeId, long time, int valueCode, int authorCode,
+      boolean isCritical) {
+    if (rows == ids.length) {
+      grow();
+    }
+    int row = rows++;
+    ids[row] = id;
+    ruleTypeIds[row] = ruleTypeId;
+    changedAt[row] = time;
+    valueCodes[row] = valueCode;
+    authorCodes[row] = authorCode;
+    critical.set(row, isCritical);
+    rowById.put(id, row);
+  }
+
+  private void copyRow(ColumnarChangeStorage from, int row) {
+    append(from.ids[row], from.ruleTypeIds[row], from.changedAt[row], from.valueCodes[row],
+        from.authorCodes[row], from.critical.get(row));
+  }
+
+  private ConfigChange materialize(int row) {
+    return new ConfigChange(ids[row], ruleTypeIds[row], currentValues.decode(valueCodes[row]),
+        authors.decode(authorCodes[row]), ChangeKey.fromEpochNanos(changedAt[row]), critical.get(row));
+  }
+
+  private void grow() {
+    int capacity = ids.length * 2;
+    ids = Arrays.copyOf(ids, capacity);
+    ruleTypeIds = Arrays.copyOf(ruleTypeIds, capacity);
+    changedAt = Arrays.copyOf(changedAt, capacity);
+    valueCodes = Arrays.copyOf(valueCodes, capacity);
+    authorCodes = Arrays.copyOf(authorCodes, capacity);
+  }
+}
@@ -1,43 +1,594 @@
 package com.example.configtracker.repo;
 
 import com.example.configtracker.entities.ConfigChange;
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class ConfigChangeRepo {
 
-  private final Map<Long, ConfigChange> storage = new HashMap<>();
+  private static final int LOCK_STRIPES = 64;
+  private static final Consumer<ConfigChange> NOTHING = change -> {
+  };
+
+  private final StringDictionary currentValues = new StringDictionary();
+  private final StringDictionary authors = new StringDictionary();
+  private final ChangeStorage storage;
+  private final Map<DuplicateKey, Long> duplicateIndex = new ConcurrentHashMap<>();
+  private final NavigableSet<ChangeKey> timeIndex = new ConcurrentSkipListSet<>();
+  private final ConcurrentSkipListMap<Long, NavigableSet<ChangeKey>> ruleTimeIndex =
+      new ConcurrentSkipListMap<>();
+  // newest change of every rule type, kept current on every write so reads need no index walk
+  private final Map<Long, ChangeKey> latest = new ConcurrentHashMap<>();
+  private final Map<Long, RuleStats> stats = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+
+  // writes are serialized per rule type so a change and its index entries are updated together
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  private volatile RepositoryJournal journal = RepositoryJournal.NOOP;
+
+  public ConfigChangeRepo() {
+    this(StorageMode.OBJECT);
+  }
+
+  @Autowired
+  public ConfigChangeRepo(@Value("${configtracker.storage.mode:OBJECT}") StorageMode storageMode) {
+    this.storage = storageMode.create(currentValues, authors);
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  public void setJournal(RepositoryJournal journal) {
+    this.journal = journal;
+  }
 
   public Long generateId() {
-    return storage.keySet().stream()
-        .mapToLong(Long::longValue)
-        .max()
-        .orElse(0L) + 1;
+    return sequence.incrementAndGet();
+  }
+
+  /** Reserves {@code count} consecutive ids and returns the first of them. */
+  public long generateIds(int count) {
+    return sequence.getAndAdd(count) + 1;
   }
 
+  /** Highest id handed out so far. */
+  public long getSequence() {
+    return sequence.get();
+  }
+
+  /** Makes sure ids up to {@code id} are never generated, e.g. ids of changes deleted before a restore. */
+  public void advanceSequence(long id) {
+    sequence.accumulateAndGet(id, Math::max);
+  }
 
   public List<ConfigChange> findAll() {
-    return storage.values().stream().toList();
+    journal.checkUsable();
+    List<ConfigChange> all = new ArrayList<>();
+    storage.forEach(all::add);
+    return all;
+  }
+
+  /** Visits every stored change without copying the whole history. */
+  public void forEach(Consumer<ConfigChange> action) {
+    journal.checkUsable();
+    storage.forEach(action);
+  }
+
+  public long count() {
+    return storage.size();
+  }
+
+  // index sizes for RepositoryMetrics; all are constant-time reads
+
+  int duplicateIndexSize() {
+    return duplicateIndex.size();
+  }
+
+  int latestIndexSize() {
+    return latest.size();
+  }
+
+  int distinctValues() {
+    return currentValues.size();
+  }
+
+  int distinctAuthors() {
+    return authors.size();
+  }
+
+  /**
+   * Aggregates of the rule type's stored changes, with change counts for the {@code hours} hours
+   * up to {@code now}. Served from counters kept current on every write, not from the history.
+   */
+  public Optional<ChangeStats> findStats(Long ruleTypeId, LocalDateTime now, int hours) {
+    journal.checkUsable();
+    RuleStats ruleStats = stats.get(ruleTypeId);
+    return ruleStats == null ? Optional.empty()
+        : Optional.of(ruleStats.snapshot(ChangeKey.toEpochNanos(now), hours, latest.get(ruleTypeId)));
+  }
+
+  /** {@link #findStats} for every rule type that has changes, in ascending rule type id order. */
+  public Map<Long, ChangeStats> findAllStats(LocalDateTime now, int hours) {
+    journal.checkUsable();
+    long nanos = ChangeKey.toEpochNanos(now);
+    Map<Long, ChangeStats> all = new TreeMap<>();
+    stats.forEach((ruleTypeId, ruleStats) ->
+        all.put(ruleTypeId, ruleStats.snapshot(nanos, hours, latest.get(ruleTypeId))));
+    return all;
+  }
+
+  /** Rule types that have at least one stored change, in ascending id order. */
+  public Set<Long> findRuleTypeIds() {
+    journal.checkUsable();
+    return Collections.unmodifiableSet(ruleTimeIndex.keySet());
   }
 
   public Optional<ConfigChange> findById(Long id) {
+    journal.checkUsable();
     return Optional.ofNullable(storage.get(id));
   }
 
+  /** Most recent change (by changedAt, then id) of the rule type, if it has any. */
+  public Optional<ConfigChange> findLatestByRuleTypeId(Long ruleTypeId) {
+    journal.checkUsable();
+    ChangeKey key = latest.get(ruleTypeId);
+    return key == null ? Optional.empty() : Optional.ofNullable(storage.get(key.id()));
+  }
+
+  /** Most recent change of every rule type that has one, in ascending rule type id order. */
+  public Map<Long, ConfigChange> findAllLatest() {
+    journal.checkUsable();
+    Map<Long, ConfigChange> all = new TreeMap<>();
+    latest.forEach((ruleTypeId, key) -> {
+      ConfigChange change = storage.get(key.id());
+      if (change != null) {
+        all.put(ruleTypeId, change);
+      }
+    });
+    return all;
+  }
+
+  /** Change of the rule type that was in effect at {@code at}: the newest one made at or before it. */
+  public Optional<ConfigChange> findAsOf(Long ruleTypeId, LocalDateTime at) {
+    journal.checkUsable();
+    NavigableSet<ChangeKey> history = ruleTimeIndex.get(ruleTypeId);
+    return history == null ? Optional.empty() : Optional.ofNullable(floor(history, ChangeKey.after(at)));
+  }
+
+  /**
+   * {@link #findAsOf} for every rule type, in ascending rule type id order. Each rule costs one
+   * seek in its own time-sorted history, so no history is scanned.
+   */
+  public Map<Long, ConfigChange> findAllAsOf(LocalDateTime at) {
+    journal.checkUsable();
+    ChangeKey bound = ChangeKey.after(at);
+    Map<Long, ConfigChange> all = new LinkedHashMap<>();
+    ruleTimeIndex.forEach((ruleTypeId, history) -> {
+      ConfigChange change = floor(history, bound);
+      if (change != null) {
+        all.put(ruleTypeId, change);
+      }
+    });
+    return all;
+  }
+
+  /**
+   * Returns changes made strictly after {@code from} and strictly before {@code to}, oldest first.
+   * A {@code null} bound leaves that side of the range open.
+   */
+  public List<ConfigChange> findByChangedAtBetween(LocalDateTime from, LocalDateTime to) {
+    journal.checkUsable();
+    return resolve(range(timeIndex, from, to));
+  }
+
+  /** Same as {@link #findByChangedAtBetween} restricted to one rule type. */
+  public List<ConfigChange> findByRuleTypeIdAndChangedAtBetween(Long ruleTypeId, LocalDateTime from,
+      LocalDateTime to) {
+    journal.checkUsable();
+    NavigableSet<ChangeKey> history = ruleTimeIndex.get(ruleTypeId);
+    return history == null ? List.of() : resolve(range(history, from, to));
+  }
+
+  /**
+   * Groups the changes in the given range by rule type, in ascending rule type id order, with each
+   * history oldest first. Rule types without changes in the range are left out.
+   */
+  public Map<Long, List<ConfigChange>> findHistoriesByChangedAtBetween(LocalDateTime from,
+      LocalDateTime to) {
+    journal.checkUsable();
+    Map<Long, List<ConfigChange>> histories = new LinkedHashMap<>();
+    ruleTimeIndex.forEach((ruleTypeId, history) -> {
+      List<ConfigChange> changes = resolve(range(history, from, to));
+      if (!changes.isEmpty()) {
+        histories.put(ruleTypeId, changes);
+      }
+    });
+    return histories;
+  }
+
+  /**
+   * Keyset page over the time index: up to {@code limit} changes in the exclusive range
+   * ({@code from}, {@code to}) that sort strictly after {@code after}, oldest first. The cursor key
+   * is used as a seek position, so later pages cost the same as the first one. A {@code null}
+   * rule type id pages over all rule types; {@code null} bounds and cursor are open.
+   */
+  public List<ConfigChange> findPage(Long ruleTypeId, LocalDateTime from, LocalDateTime to,
+      ChangeKey after, int limit) {
+    journal.checkUsable();
+    NavigableSet<ChangeKey> index = ruleTypeId == null ? timeIndex : ruleTimeIndex.get(ruleTypeId);
+    if (index == null) {
+      return List.of();
+    }
+    ChangeKey lower = from == null ? null : ChangeKey.after(from);
+    if (after != null && (lower == null || after.compareTo(lower) > 0)) {
+      lower = after;
+    }
+    List<ConfigChange> page = new ArrayList<>(Math.min(limit, 1024));
+    for (ChangeKey key : range(index, lower, to == null ? null : ChangeKey.before(to))) {
+      if (page.size() >= limit) {
+        break;
+      }
+      ConfigChange change = storage.get(key.id());
+      if (change != null) {
+        page.add(change);
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Visits the changes in the exclusive range ({@code from}, {@code to}) oldest first, straight off
+   * the time index and without collecting them. A {@code null} rule type id visits all rule types.
+   */
+  public void forEachInRange(Long ruleTypeId, LocalDateTime from, LocalDateTime to,
+      Consumer<ConfigChange> action) {
+    journal.checkUsable();
+    NavigableSet<ChangeKey> index = ruleTypeId == null ? timeIndex : ruleTimeIndex.get(ruleTypeId);
+    if (index == null) {
+      return;
+    }
+    for (ChangeKey key : range(index, from, to)) {
+      ConfigChange change = storage.get(key.id());
+      if (change != null) {
+        action.accept(change);
+      }
+    }
+  }
+
+  public boolean existsDuplicate(Long ruleTypeId, String currentValue, boolean critical) {
+    journal.checkUsable();
+    int valueCode = currentValues.find(currentValue);
+    // a value that is not stored cannot have a duplicate
+    if (valueCode == StringDictionary.NULL_CODE) {
+      return false;
+    }
+    // without a lock the code may have been released and reused since, so check the row itself
+    Long id = duplicateIndex.get(new DuplicateKey(ruleTypeId, valueCode, critical));
+    ConfigChange stored = id == null ? null : storage.get(id);
+    return stored != null && Objects.equals(ruleTypeId, stored.getRuleTypeId())
+        && currentValue.equals(stored.getCurrentValue()) && stored.isCritical() == critical;
+  }
+
   public ConfigChange save(ConfigChange change) {
-    if (change.getId() == null) {
-      change.setId(generateId());
+    journal.checkUsable();
+    assignId(change);
+    ConfigChange previous = storage.get(change.getId());
+    int stripe = stripeFor(change.getRuleTypeId());
+    int previousStripe = previous == null ? stripe : stripeFor(previous.getRuleTypeId());
+    // a re-save may move the change to another rule type; take both stripes in a fixed order
+    CompletableFuture<Void> commit;
+    synchronized (locks[Math.min(stripe, previousStripe)]) {
+      synchronized (locks[Math.max(stripe, previousStripe)]) {
+        store(change);
+        commit = journal.changeSaved(change);
+      }
     }
-    storage.put(change.getId(), change);
+    RepositoryJournal.await(commit);
     return change;
   }
 
+  /**
+   * Saves the change unless an identical one (see {@link #existsDuplicate}) is already stored.
+   * The check and the insert happen under the same lock, so concurrent identical requests cannot
+   * both succeed.
+   *
+   * @return {@code false} if the change was rejected as a duplicate
+   */
+  public boolean saveIfUnique(ConfigChange change) {
+    return saveIfUnique(change, NOTHING);
+  }
+
+  /**
+   * {@link #saveIfUnique} that hands the stored change to {@code committed} while still holding
+   * the lock, right after journaling it. Observers fed from there see the changes to a rule type
+   * in journal order; the callback must be quick and must not throw.
+   */
+  public boolean saveIfUnique(ConfigChange change, Consumer<ConfigChange> committed) {
+    journal.checkUsable();
+    assignId(change);
+    CompletableFuture<Void> commit;
+    synchronized (lockFor(change.getRuleTypeId())) {
+      if (isStored(change)) {
+        return false;
+      }
+      store(change);
+      commit = journal.changeSaved(change);
+      committed.accept(change);
+    }
+    RepositoryJournal.await(commit);
+    return true;
+  }
+
+  /**
+   * Batch form of {@link #saveIfUnique}. Each change is checked against the stored ones and the
+   * changes accepted before it in the same list; all accepted changes are journaled back to back
+   * and waited for once, so the whole batch shares a single log commit.
+   *
+   * @return for every change, whether it was stored
+   */
+  public boolean[] saveAllIfUnique(List<ConfigChange> changes) {
+    return saveAllIfUnique(changes, NOTHING);
+  }
+
+  /** {@link #saveAllIfUnique} with a {@code committed} callback as in {@link #saveIfUnique}. */
+  public boolean[] saveAllIfUnique(List<ConfigChange> changes, Consumer<ConfigChange> committed) {
+    journal.checkUsable();
+    boolean[] saved = new boolean[changes.size()];
+    List<CompletableFuture<Void>> commits = new ArrayList<>(changes.size());
+    for (int i = 0; i < changes.size(); i++) {
+      ConfigChange change = changes.get(i);
+      assignId(change);
+      synchronized (lockFor(change.getRuleTypeId())) {
+        if (isStored(change)) {
+          continue;
+        }
+        store(change);
+        commits.add(journal.changeSaved(change));
+        committed.accept(change);
+      }
+      saved[i] = true;
+    }
+    RepositoryJournal.await(CompletableFuture.allOf(commits.toArray(CompletableFuture[]::new)));
+    return saved;
+  }
+
   public void deleteById(Long id) {
-    storage.remove(id);
+    deleteById(id, NOTHING);
+  }
+
+  /**
+   * Deletes the change and, if it was still stored, hands the removed row to {@code deleted}
+   * under the lock, as {@link #saveIfUnique} does for saves.
+   */
+  public void deleteById(Long id, Consumer<ConfigChange> deleted) {
+    journal.checkUsable();
+    ConfigChange existing = storage.get(id);
+    if (existing == null) {
+      return;
+    }
+    CompletableFuture<Void> commit = RepositoryJournal.DONE;
+    synchronized (lockFor(existing.getRuleTypeId())) {
+      // only remove the row we locked for; a concurrent re-save may have moved it to another stripe
+      ConfigChange current = storage.get(id);
+      if (current != null && stripeFor(current.getRuleTypeId()) == stripeFor(existing.getRuleTypeId())) {
+        ConfigChange removed = storage.remove(id);
+        unindex(removed);
+        commit = journal.changeDeleted(id);
+        deleted.accept(removed);
+      }
+    }
+    RepositoryJournal.await(commit);
+  }
+
+  /**
+   * Removes up to {@code limit} changes of the rule type that {@code policy} no longer keeps at
+   * {@code now}, oldest first. The rule type's lock is held for this batch only, so callers expire
+   * a long history in several calls and writers get in between them.
+   *
+   * @return how many changes were removed; fewer than {@code limit} once nothing is left to expire
+   */
+  public int expire(Long ruleTypeId, RetentionPolicy policy, LocalDateTime now, int limit) {
+    journal.checkUsable();
+    List<CompletableFuture<Void>> commits = new ArrayList<>();
+    synchronized (lockFor(ruleTypeId)) {
+      NavigableSet<ChangeKey> history = ruleTimeIndex.get(ruleTypeId);
+      ChangeKey bound = history == null ? null : expiryBound(history, policy, now);
+      if (bound == null) {
+        return 0;
+      }
+      Iterator<ChangeKey> expired = history.headSet(bound, false).iterator();
+      while (commits.size() < limit && expired.hasNext()) {
+        ChangeKey key = expired.next();
+        ConfigChange removed = storage.remove(key.id());
+        if (removed != null) {
+          unindex(removed);
+          commits.add(journal.changeDeleted(key.id()));
+        }
+      }
+    }
+    RepositoryJournal.await(CompletableFuture.allOf(commits.toArray(CompletableFuture[]::new)));
+    return commits.size();
+  }
+
+  /** Deletes every stored change; the id sequence is kept so ids are never handed out twice. */
+  public void clear() {
+    journal.checkUsable();
+    for (ConfigChange change : findAll()) {
+      deleteById(change.getId());
+    }
+  }
+
+  /** Releases space the storage still holds for removed changes; returns the bytes freed. */
+  public long compactStorage() {
+    return storage.compact();
+  }
+
+  /** Every change of the history that sorts below the returned key is expired under the policy. */
+  private static ChangeKey expiryBound(NavigableSet<ChangeKey> history, RetentionPolicy policy,
+      LocalDateTime now) {
+    if (history.isEmpty() || policy.isUnlimited()) {
+      return null;
+    }
+    ChangeKey bound = policy.maxAge() == null ? null : ChangeKey.before(now.minus(policy.maxAge()));
+    if (policy.maxVersions() > 0) {
+      // walk back to the oldest of the versions kept; a shorter history stops at its first change
+      Iterator<ChangeKey> newest = history.descendingIterator();
+      ChangeKey oldestKept = null;
+      for (int i = 0; i < policy.maxVersions() && newest.hasNext(); i++) {
+        oldestKept = newest.next();
+      }
+      if (oldestKept != null && (bound == null || oldestKept.compareTo(bound) > 0)) {
+        bound = oldestKept;
+      }
+    }
+    if (bound != null && policy.keepLatest() && bound.compareTo(history.last()) > 0) {
+      bound = history.last();
+    }
+    return bound;
+  }
+
+  private void assignId(ConfigChange change) {
+    if (change.getId() == null) {
+      change.setId(generateId());
+    } else {
+      // keep the sequence ahead of explicitly assigned ids so they are never handed out twice
+      sequence.accumulateAndGet(change.getId(), Math::max);
+    }
+  }
+
+  private void store(ConfigChange change) {
+    // the row's references on its codes, dropped again in unindex
+    int valueCode = currentValues.acquire(change.getCurrentValue());
+    int authorCode = authors.acquire(change.getChangedBy());
+    ConfigChange previous = storage.put(change);
+    if (previous != null) {
+      unindex(previous);
+    }
+    ChangeKey key = ChangeKey.of(change);
+    duplicateIndex.putIfAbsent(new DuplicateKey(change.getRuleTypeId(), valueCode, change.isCritical()),
+        change.getId());
+    timeIndex.add(key);
+    ruleTimeIndex.computeIfAbsent(change.getRuleTypeId(), k -> new ConcurrentSkipListSet<>()).add(key);
+    latest.merge(change.getRuleTypeId(), key, (current, added) -> added.compareTo(current) > 0 ? added : current);
+    stats.computeIfAbsent(change.getRuleTypeId(), k -> new RuleStats())
+        .add(key.changedAt(), authorCode, change.isCritical());
+  }
+
+  /** Drops a row that has left the storage from every index and releases its codes. */
+  private void unindex(ConfigChange change) {
+    ChangeKey key = ChangeKey.of(change);
+    duplicateIndex.remove(duplicateKey(change), change.getId());
+    timeIndex.remove(key);
+    NavigableSet<ChangeKey> history = ruleTimeIndex.get(change.getRuleTypeId());
+    if (history != null) {
+      history.remove(key);
+      if (history.isEmpty()) {
+        ruleTimeIndex.remove(change.getRuleTypeId(), history);
+      }
+    }
+    // only removing the newest change moves the latest pointer, back to the next newest one
+    if (key.equals(latest.get(change.getRuleTypeId()))) {
+      ChangeKey previous = history == null || history.isEmpty() ? null : history.last();
+      if (previous == null) {
+        latest.remove(change.getRuleTypeId());
+      } else {
+        latest.put(change.getRuleTypeId(), previous);
+      }
+    }
+    RuleStats ruleStats = stats.get(change.getRuleTypeId());
+    if (ruleStats != null
+        && ruleStats.remove(key.changedAt(), authors.find(change.getChangedBy()), change.isCritical())) {
+      stats.remove(change.getRuleTypeId(), ruleStats);
+    }
+    currentValues.release(change.getCurrentValue());
+    authors.release(change.getChangedBy());
+  }
+
+  /**
+   * Whether the change or an identical one is stored. Callers hold the change's stripe lock: a code
+   * found here may be released by another stripe, but it cannot be reused for a row of this one.
+   */
+  private boolean isStored(ConfigChange change) {
+    int valueCode = currentValues.find(change.getCurrentValue());
+    boolean unknownValue = valueCode == StringDictionary.NULL_CODE && change.getCurrentValue() != null;
+    return (!unknownValue && duplicateIndex.containsKey(duplicateKey(change)))
+        || storage.contains(change.getId());
+  }
+
+  private DuplicateKey duplicateKey(ConfigChange change) {
+    return new DuplicateKey(change.getRuleTypeId(), currentValues.find(change.getCurrentValue()),
+        change.isCritical());
+  }
+
+  private static NavigableSet<ChangeKey> range(NavigableSet<ChangeKey> index, LocalDateTime from,
+      LocalDateTime to) {
+    return range(index, from == null ? null : ChangeKey.after(from),
+        to == null ? null : ChangeKey.before(to));
+  }
+
+  private static NavigableSet<ChangeKey> range(NavigableSet<ChangeKey> index, ChangeKey lower,
+      ChangeKey upper) {
+    if (lower != null && upper != null) {
+      return lower.compareTo(upper) < 0
+          ? index.subSet(lower, false, upper, false)
+          : Collections.emptyNavigableSet();
+    }
+    if (lower != null) {
+      return index.tailSet(lower, false);
+    }
+    return upper != null ? index.headSet(upper, false) : index;
+  }
+
+  private ConfigChange floor(NavigableSet<ChangeKey> history, ChangeKey bound) {
+    // normally the first key is the answer; more are only read while skipping concurrently deleted rows
+    for (ChangeKey key : history.headSet(bound, true).descendingSet()) {
+      ConfigChange change = storage.get(key.id());
+      if (change != null) {
+        return change;
+      }
+    }
+    return null;
+  }
+
+  private List<ConfigChange> resolve(Iterable<ChangeKey> keys) {
+    List<ConfigChange> changes = new ArrayList<>();
+    for (ChangeKey key : keys) {
+      ConfigChange change = storage.get(key.id());
+      // an index entry can briefly outlive a concurrent delete; skip it
+      if (change != null) {
+        changes.add(change);
+      }
+    }
+    return changes;
+  }
+
+  private Object lockFor(Long ruleTypeId) {
+    return locks[stripeFor(ruleTypeId)];
+  }
+
+  private static int stripeFor(Long ruleTypeId) {
+    return Objects.hashCode(ruleTypeId) & (LOCK_STRIPES - 1);
   }
 
 }
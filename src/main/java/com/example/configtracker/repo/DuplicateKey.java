@@ -0,0 +1,9 @@
+package com.example.configtracker.repo;
+
+/**
+ * Identity of a config change for duplicate detection: two changes are duplicates when they set
+ * the same value with the same criticality on the same rule type. The value is held as its
+ * dictionary code, so comparing keys never compares string contents.
+ */
+record DuplicateKey(long ruleTypeId, int valueCode, boolean critical) {
+}
@@ -0,0 +1,136 @@
+package com.example.configtracker.repo;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code long -> int} map with linear probing, so row lookups by id need no boxed
+ * keys or entry objects. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+  static final int MISSING = -1;
+
+  private static final long FREE = 0;
+  private static final float LOAD_FACTOR = 0.6f;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  // key 0 marks a free slot, so its mapping is kept on the side
+  private boolean hasZeroKey;
+  private int zeroValue;
+
+  LongIntHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  int get(long key) {
+    if (key == FREE) {
+      return hasZeroKey ? zeroValue : MISSING;
+    }
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      long candidate = keys[slot];
+      if (candidate == key) {
+        return values[slot];
+      }
+      if (candidate == FREE) {
+        return MISSING;
+      }
+    }
+  }
+
+  void put(long key, int value) {
+    if (key == FREE) {
+      if (!hasZeroKey) {
+        size++;
+      }
+      hasZeroKey = true;
+      zeroValue = value;
+      return;
+    }
+    int slot = slot(key);
+    while (keys[slot] != FREE && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (keys[slot] == FREE) {
+      keys[slot] = key;
+      if (++size > keys.length * LOAD_FACTOR) {
+        values[slot] = value;
+        resize();
+        return;
+      }
+    }
+    values[slot] = value;
+  }
+
+  int remove(long key) {
+    if (key == FREE) {
+      if (!hasZeroKey) {
+        return MISSING;
+      }
+      hasZeroKey = false;
+      size--;
+      return zeroValue;
+    }
+    int slot = slot(key);
+    while (keys[slot] != key) {
+      if (keys[slot] == FREE) {
+        return MISSING;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int previous = values[slot];
+    // backward-shift deletion keeps probe sequences intact without tombstones
+    int gap = slot;
+    for (int i = (slot + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+      int ideal = slot(keys[i]);
+      if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    keys[gap] = FREE;
+    size--;
+    return previous;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    Arrays.fill(keys, FREE);
+    hasZeroKey = false;
+    size = 0;
+  }
+
+  private int slot(long key) {
+    long mixed = key * 0x9E3779B97F4A7C15L;
+    return (int) (mixed ^ (mixed >>> 32)) & mask;
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new int[oldValues.length * 2];
+    mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      long key = oldKeys[i];
+      if (key != FREE) {
+        int slot = slot(key);
+        while (keys[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
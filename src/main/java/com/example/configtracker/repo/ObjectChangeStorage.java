@@ -0,0 +1,57 @@
+package com.example.configtracker.repo;
+
+import com.example.configtracker.entities.ConfigChange;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+class ObjectChangeStorage implements ChangeStorage {
+
+  private final Map<Long, ConfigChange> rows = new ConcurrentHashMap<>();
+  private final StringDictionary currentValues;
+  private final StringDictionary authors;
+
+  ObjectChangeStorage(StringDictionary currentValues, StringDictionary authors) {
+    this.currentValues = currentValues;
+    this.authors = authors;
+  }
+
+  @Override
+  public ConfigChange get(long id) {
+    return rows.get(id);
+  }
+
+  @Override
+  public boolean contains(long id) {
+    return rows.containsKey(id);
+  }
+
+  @Override
+  public ConfigChange put(ConfigChange change) {
+    // share one String instance per distinct value across all stored changes
+    change.setCurrentValue(currentValues.canonical(change.getCurrentValue()));
+    change.setChangedBy(authors.canonical(change.getChangedBy()));
+    return rows.put(change.getId(), change);
+  }
+
+  @Override
+  public ConfigChange remove(long id) {
+    return rows.remove(id);
+  }
+
+  @Override
+  public long size() {
+    return rows.size();
+  }
+
+  @Override
+  public void forEach(Consumer<ConfigChange> action) {
+    rows.values().forEach(action);
+  }
+
+  @Override
+  public long compact() {
+    // removed rows are dropped from the map and left to the garbage collector
+    return 0;
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.configtracker.repo;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.exception.StoreFailedException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Receives every mutation applied to the in-memory repositories so it can be made durable.
+ * Repositories call it while still holding their write lock, which keeps the journal order equal
+ * to the order the mutations were applied in, and wait on the returned future only after
+ * releasing the lock.
+ *
+ * <p>A failed commit leaves memory ahead of the journal. Rolling single mutations back is not
+ * safe once later writers have built on them, so the journal fails for good instead and the
+ * repositories refuse every read and write until a restart rebuilds them from what it holds.
+ */
+public interface RepositoryJournal {
+
+  CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+  RepositoryJournal NOOP = new RepositoryJournal() {
+    @Override
+    public CompletableFuture<Void> changeSaved(ConfigChange change) {
+      return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> changeDeleted(Long id) {
+      return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> ruleTypeSaved(RuleType ruleType) {
+      return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> ruleTypeDeleted(Long id) {
+      return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> ruleTypesCleared() {
+      return DONE;
+    }
+
+    @Override
+    public Throwable failure() {
+      return null;
+    }
+  };
+
+  CompletableFuture<Void> changeSaved(ConfigChange change);
+
+  CompletableFuture<Void> changeDeleted(Long id);
+
+  CompletableFuture<Void> ruleTypeSaved(RuleType ruleType);
+
+  CompletableFuture<Void> ruleTypeDeleted(Long id);
+
+  CompletableFuture<Void> ruleTypesCleared();
+
+  /** Why mutations can no longer be made durable, or {@code null} while they can. */
+  Throwable failure();
+
+  /** Throws once the journal has failed, since memory may then hold mutations it lost. */
+  default void checkUsable() {
+    Throwable failure = failure();
+    if (failure != null) {
+      throw new StoreFailedException(failure);
+    }
+  }
+
+  /** Waits for a commit returned by a journal. */
+  static void await(CompletableFuture<?> commit) {
+    try {
+      commit.join();
+    } catch (CompletionException e) {
+      throw new StoreFailedException(e.getCause());
+    }
+  }
+}
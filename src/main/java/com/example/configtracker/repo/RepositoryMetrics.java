@@ -0,0 +1,55 @@
+package com.example.configtracker.repo;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the sizes of the in-memory repositories and their indexes as gauges. Only counters the
+ * maps keep anyway are read, so scraping stays cheap however large the history gets.
+ */
+@Component
+public class RepositoryMetrics implements MeterBinder {
+
+  private final ConfigChangeRepo configChangeRepo;
+  private final RuleTypeRepo ruleTypeRepo;
+
+  public RepositoryMetrics(ConfigChangeRepo configChangeRepo, RuleTypeRepo ruleTypeRepo) {
+    this.configChangeRepo = configChangeRepo;
+    this.ruleTypeRepo = ruleTypeRepo;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("configtracker.repository.size", configChangeRepo, ConfigChangeRepo::count)
+        .description("Stored config changes")
+        .tag("repository", "config-changes")
+        .register(registry);
+    Gauge.builder("configtracker.repository.size", ruleTypeRepo, RuleTypeRepo::count)
+        .description("Stored rule types")
+        .tag("repository", "rule-types")
+        .register(registry);
+
+    Gauge.builder("configtracker.repository.index.size", configChangeRepo, ConfigChangeRepo::duplicateIndexSize)
+        .description("Entries in the duplicate-change index")
+        .tag("index", "duplicates")
+        .register(registry);
+    Gauge.builder("configtracker.repository.index.size", configChangeRepo, ConfigChangeRepo::latestIndexSize)
+        .description("Rule types with a current value")
+        .tag("index", "latest")
+        .register(registry);
+    Gauge.builder("configtracker.repository.index.size", configChangeRepo, ConfigChangeRepo::distinctValues)
+        .description("Distinct values in the value dictionary")
+        .tag("index", "values")
+        .register(registry);
+    Gauge.builder("configtracker.repository.index.size", configChangeRepo, ConfigChangeRepo::distinctAuthors)
+        .description("Distinct authors in the author dictionary")
+        .tag("index", "authors")
+        .register(registry);
+    Gauge.builder("configtracker.repository.index.size", ruleTypeRepo, RuleTypeRepo::nameIndexSize)
+        .description("Entries in the rule type name index")
+        .tag("index", "rule-names")
+        .register(registry);
+  }
+}
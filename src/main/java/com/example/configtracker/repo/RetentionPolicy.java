@@ -0,0 +1,16 @@
+package com.example.configtracker.repo;
+
+import java.time.Duration;
+
+/**
+ * How much history of a rule type to keep. A change expires once it is older than {@code maxAge}
+ * or no longer among the {@code maxVersions} newest changes of its rule type; with
+ * {@code keepLatest} the newest change is kept regardless. A {@code null} age or a count of zero
+ * leaves that limit off.
+ */
+public record RetentionPolicy(Duration maxAge, int maxVersions, boolean keepLatest) {
+
+  public boolean isUnlimited() {
+    return maxAge == null && maxVersions <= 0;
+  }
+}
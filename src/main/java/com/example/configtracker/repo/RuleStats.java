@@ -0,0 +1,91 @@
+package com.example.configtracker.repo;
+
+import java.util.Arrays;
+
+/**
+ * Running aggregates of one rule type's stored changes, updated in constant time as changes are
+ * stored and removed, so reading them never walks the history. Changes per hour are kept for the
+ * last {@link #HOURS} hours in a ring of buckets; a bucket is reused once its hour falls out of
+ * the window.
+ */
+final class RuleStats {
+
+  static final int HOURS = ChangeStats.MAX_HOURS;
+  private static final long NANOS_PER_HOUR = 3_600_000_000_000L;
+  private static final long NO_HOUR = Long.MIN_VALUE;
+  private static final long NO_TIME = ChangeKey.toEpochNanos(null);
+
+  private long changes;
+  private long criticalChanges;
+  // changes per author dictionary code, so an author is dropped with their last change
+  private final LongIntHashMap authorChanges = new LongIntHashMap(16);
+  private final long[] bucketHours = new long[HOURS];
+  private final int[] bucketCounts = new int[HOURS];
+
+  RuleStats() {
+    Arrays.fill(bucketHours, NO_HOUR);
+  }
+
+  synchronized void add(long changedAt, int authorCode, boolean critical) {
+    changes++;
+    if (critical) {
+      criticalChanges++;
+    }
+    int count = authorChanges.get(authorCode);
+    authorChanges.put(authorCode, count == LongIntHashMap.MISSING ? 1 : count + 1);
+    if (changedAt == NO_TIME) {
+      return;
+    }
+    long hour = Math.floorDiv(changedAt, NANOS_PER_HOUR);
+    int slot = slot(hour);
+    if (bucketHours[slot] == hour) {
+      bucketCounts[slot]++;
+    } else if (bucketHours[slot] < hour) {
+      // the bucket belongs to an hour at least a window older, which no read can ask for anymore
+      bucketHours[slot] = hour;
+      bucketCounts[slot] = 1;
+    }
+  }
+
+  /** Reverses {@link #add}; returns whether no changes are left. */
+  synchronized boolean remove(long changedAt, int authorCode, boolean critical) {
+    changes--;
+    if (critical) {
+      criticalChanges--;
+    }
+    int count = authorChanges.get(authorCode);
+    if (count <= 1) {
+      authorChanges.remove(authorCode);
+    } else {
+      authorChanges.put(authorCode, count - 1);
+    }
+    if (changedAt != NO_TIME) {
+      long hour = Math.floorDiv(changedAt, NANOS_PER_HOUR);
+      int slot = slot(hour);
+      if (bucketHours[slot] == hour) {
+        bucketCounts[slot]--;
+      }
+    }
+    return changes == 0;
+  }
+
+  /** Snapshot with the {@code hours} hours up to and including the hour of {@code now}. */
+  synchronized ChangeStats snapshot(long now, int hours, ChangeKey latest) {
+    long lastHour = Math.floorDiv(now, NANOS_PER_HOUR);
+    long firstHour = lastHour - hours + 1;
+    int[] hourly = new int[hours];
+    for (int i = 0; i < hours; i++) {
+      int slot = slot(firstHour + i);
+      if (bucketHours[slot] == firstHour + i) {
+        hourly[i] = bucketCounts[slot];
+      }
+    }
+    return new ChangeStats(changes, criticalChanges, authorChanges.size(),
+        latest == null ? null : ChangeKey.fromEpochNanos(latest.changedAt()),
+        ChangeKey.fromEpochNanos(firstHour * NANOS_PER_HOUR), hourly);
+  }
+
+  private static int slot(long hour) {
+    return (int) Math.floorMod(hour, (long) HOURS);
+  }
+}
@@ -1,51 +1,223 @@
 package com.example.configtracker.repo;
 
 import com.example.configtracker.entities.RuleType;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Rule types are immutable, so reads are plain map lookups. Writers to the same id are ordered by a
+ * striped lock, which also keeps their journal records in commit order. Names are claimed with
+ * {@code putIfAbsent} on the name index before a rule type is stored under them, and released only
+ * after the record that gives them up has been journaled.
+ */
 @Repository
 public class RuleTypeRepo {
 
-  private final Map<Long, RuleType> storage = new HashMap<>();
+  private static final int LOCK_STRIPES = 16;
+
+  /** Outcome of {@link #compareAndSet}. */
+  public enum Swap {
+    SWAPPED,
+    /** The stored rule type is no longer the expected one, or is gone. */
+    STALE,
+    /** Another rule type holds the new name. */
+    NAME_TAKEN
+  }
+
+  private final Map<Long, RuleType> storage = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  // normalized name -> id
+  private final Map<String, Long> nameIndex = new ConcurrentHashMap<>();
+
+  private volatile RepositoryJournal journal = RepositoryJournal.NOOP;
+
+  public RuleTypeRepo() {
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  public void setJournal(RepositoryJournal journal) {
+    this.journal = journal;
+  }
 
   public Long generateId() {
-    return storage.keySet().stream()
-        .mapToLong(Long::longValue)
-        .max()
-        .orElse(0L) + 1;
+    return sequence.incrementAndGet();
+  }
+
+  public long getSequence() {
+    return sequence.get();
+  }
+
+  public void advanceSequence(long id) {
+    sequence.accumulateAndGet(id, Math::max);
   }
 
   public List<RuleType> findAll() {
-    return storage.values().stream().toList();
+    journal.checkUsable();
+    return List.copyOf(storage.values());
+  }
+
+  public long count() {
+    return storage.size();
+  }
+
+  int nameIndexSize() {
+    return nameIndex.size();
   }
 
   public Optional<RuleType> findById(Long id) {
+    journal.checkUsable();
     return Optional.ofNullable(storage.get(id));
   }
 
+  /**
+   * Stores the rule type as given, replacing whatever has its id and taking over its name. Meant for
+   * replaying the journal and for loading data; the service goes through {@link #create} and
+   * {@link #compareAndSet}. A missing id is generated and version 0 becomes 1.
+   */
   public RuleType save(RuleType ruleType) {
+    journal.checkUsable();
     if (ruleType.getId() == null) {
-      ruleType.setId(generateId());
+      ruleType = ruleType.withId(generateId());
+    } else {
+      advanceSequence(ruleType.getId());
+    }
+    if (ruleType.getVersion() == 0) {
+      ruleType = ruleType.withVersion(1);
     }
-    storage.put(ruleType.getId(), ruleType);
+    CompletableFuture<Void> commit;
+    synchronized (lockFor(ruleType.getId())) {
+      RuleType previous = storage.put(ruleType.getId(), ruleType);
+      if (ruleType.getName() != null) {
+        nameIndex.put(normalize(ruleType.getName()), ruleType.getId());
+      }
+      commit = journal.ruleTypeSaved(ruleType);
+      releaseName(previous, ruleType);
+    }
+    RepositoryJournal.await(commit);
     return ruleType;
   }
 
+  /**
+   * Stores a new rule type as version 1 under a fresh id, unless its name is taken.
+   *
+   * @return the stored rule type, or empty if another rule type has the name
+   */
+  public Optional<RuleType> create(RuleType ruleType) {
+    journal.checkUsable();
+    Long id = generateId();
+    String name = normalize(ruleType.getName());
+    if (nameIndex.putIfAbsent(name, id) != null) {
+      return Optional.empty();
+    }
+    RuleType created = new RuleType(id, ruleType.getName(), ruleType.getValueType(), 1);
+    CompletableFuture<Void> commit;
+    synchronized (lockFor(id)) {
+      storage.put(id, created);
+      commit = journal.ruleTypeSaved(created);
+    }
+    RepositoryJournal.await(commit);
+    return Optional.of(created);
+  }
+
+  /**
+   * Replaces {@code expected} with {@code updated} if it is still the stored version of the rule
+   * type. A rename claims the new name first and fails without side effects if it is taken.
+   */
+  public Swap compareAndSet(RuleType expected, RuleType updated) {
+    journal.checkUsable();
+    Long id = expected.getId();
+    String name = normalize(updated.getName());
+    boolean renamed = !name.equals(normalize(expected.getName()));
+    // whether this call put the name in the index; it may already be ours from a newer version
+    boolean claimed = false;
+    if (renamed) {
+      Long holder = nameIndex.putIfAbsent(name, id);
+      if (holder != null && !holder.equals(id)) {
+        return Swap.NAME_TAKEN;
+      }
+      claimed = holder == null;
+    }
+    CompletableFuture<Void> commit;
+    synchronized (lockFor(id)) {
+      if (!storage.replace(id, expected, updated)) {
+        if (claimed) {
+          nameIndex.remove(name, id);
+        }
+        return Swap.STALE;
+      }
+      commit = journal.ruleTypeSaved(updated);
+      releaseName(expected, updated);
+    }
+    RepositoryJournal.await(commit);
+    return Swap.SWAPPED;
+  }
+
   public void deleteById(Long id) {
-    storage.remove(id);
+    journal.checkUsable();
+    CompletableFuture<Void> commit = RepositoryJournal.DONE;
+    synchronized (lockFor(id)) {
+      RuleType removed = storage.remove(id);
+      if (removed != null) {
+        commit = journal.ruleTypeDeleted(id);
+        releaseName(removed, null);
+      }
+    }
+    RepositoryJournal.await(commit);
   }
 
   public Optional<RuleType> findByName(String name) {
-    return storage.values().stream().filter(r -> r.getName().equalsIgnoreCase(name)).findFirst();
+    journal.checkUsable();
+    if (name == null) {
+      return Optional.empty();
+    }
+    Long id = nameIndex.get(normalize(name));
+    return id == null ? Optional.empty() : findById(id);
+  }
+
+  public boolean existsByName(String name) {
+    journal.checkUsable();
+    return name != null && nameIndex.containsKey(normalize(name));
   }
 
   public void clear() {
-    storage.clear();
+    journal.checkUsable();
+    CompletableFuture<Void> commit;
+    synchronized (this) {
+      storage.clear();
+      nameIndex.clear();
+      sequence.set(0);
+      commit = journal.ruleTypesCleared();
+    }
+    RepositoryJournal.await(commit);
+  }
+
+  /** Drops the name {@code previous} was indexed under, unless {@code current} keeps it. */
+  private void releaseName(RuleType previous, RuleType current) {
+    if (previous == null || previous.getName() == null) {
+      return;
+    }
+    String name = normalize(previous.getName());
+    if (current == null || current.getName() == null || !name.equals(normalize(current.getName()))) {
+      nameIndex.remove(name, previous.getId());
+    }
+  }
+
+  private Object lockFor(Long id) {
+    return locks[Objects.hashCode(id) & (LOCK_STRIPES - 1)];
   }
-}
 
+  private static String normalize(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,16 @@
+package com.example.configtracker.repo;
+
+/** How {@link ConfigChangeRepo} keeps change rows in memory. */
+public enum StorageMode {
+  /** One {@code ConfigChange} object per stored change. */
+  OBJECT,
+  /** Primitive column arrays; {@code ConfigChange} objects are created only when read. */
+  COLUMNAR;
+
+  ChangeStorage create(StringDictionary currentValues, StringDictionary authors) {
+    return switch (this) {
+      case OBJECT -> new ObjectChangeStorage(currentValues, authors);
+      case COLUMNAR -> new ColumnarChangeStorage(currentValues, authors);
+    };
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.configtracker.repo;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns small integer codes to strings and hands out one canonical instance per distinct
+ * string. Low-cardinality columns such as authors and typical values then cost an {@code int}
+ * per row and compare by code. Every stored row holds a reference on its codes; when the last
+ * row using a string is removed its code is released and reused for the next new string, so the
+ * dictionary grows with the distinct strings currently stored, not with every one ever seen.
+ */
+final class StringDictionary {
+
+  static final int NULL_CODE = -1;
+
+  private static final class Entry {
+
+    private final int code;
+    // rows holding the code; 0 while a release is pending, -1 once released
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private Entry(int code) {
+      this.code = code;
+    }
+  }
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private volatile String[] strings = new String[64];
+  // guarded by this
+  private int size;
+  private int[] freeCodes = new int[16];
+  private int freeCount;
+
+  /** Returns the code for {@code value} and takes a reference on it, assigning one if needed. */
+  int acquire(String value) {
+    if (value == null) {
+      return NULL_CODE;
+    }
+    Entry entry = entries.get(value);
+    return entry != null && retain(entry) ? entry.code : acquireLocked(value);
+  }
+
+  /** Drops a reference taken by {@link #acquire}; dropping the last one releases the code. */
+  void release(String value) {
+    if (value == null) {
+      return;
+    }
+    Entry entry = entries.get(value);
+    if (entry.references.decrementAndGet() == 0) {
+      releaseLocked(value, entry);
+    }
+  }
+
+  /**
+   * Returns the code for {@code value} without taking a reference, or {@link #NULL_CODE} if it has
+   * none. A code found without holding a reference may be released and reused at any time.
+   */
+  int find(String value) {
+    if (value == null) {
+      return NULL_CODE;
+    }
+    Entry entry = entries.get(value);
+    return entry == null ? NULL_CODE : entry.code;
+  }
+
+  /** Returns the string of a code the caller holds a reference on. */
+  String decode(int code) {
+    return code == NULL_CODE ? null : strings[code];
+  }
+
+  /** Returns the dictionary's instance of a string the caller holds a reference on. */
+  String canonical(String value) {
+    return decode(find(value));
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private static boolean retain(Entry entry) {
+    int count;
+    do {
+      count = entry.references.get();
+      if (count <= 0) {
+        // a release is pending or done; acquireLocked decides which
+        return false;
+      }
+    } while (!entry.references.compareAndSet(count, count + 1));
+    return true;
+  }
+
+  private synchronized int acquireLocked(String value) {
+    Entry existing = entries.get(value);
+    if (existing != null) {
+      // at zero the pending release sees the new reference and keeps the code
+      existing.references.incrementAndGet();
+      return existing.code;
+    }
+    int code = freeCount > 0 ? freeCodes[--freeCount] : size++;
+    String[] current = strings;
+    if (code == current.length) {
+      current = Arrays.copyOf(current, current.length * 2);
+    }
+    current[code] = value;
+    strings = current;
+    // publishing the code last means any reader holding it also sees the string
+    entries.put(value, new Entry(code));
+    return code;
+  }
+
+  private synchronized void releaseLocked(String value, Entry entry) {
+    if (!entry.references.compareAndSet(0, -1)) {
+      // acquired again since the count reached zero
+      return;
+    }
+    entries.remove(value, entry);
+    strings[entry.code] = null;
+    if (freeCount == freeCodes.length) {
+      freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+    }
+    freeCodes[freeCount++] = entry.code;
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.configtracker.service;
+
+import com.example.configtracker.exception.APIException;
+import com.example.configtracker.repo.ChangeKey;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque page cursor: the (changedAt, id) key of the last change on the previous page, encoded as
+ * URL-safe base64 so clients pass it back unchanged.
+ */
+final class ChangeCursor {
+
+  private static final int LENGTH = 2 * Long.BYTES;
+
+  private ChangeCursor() {
+  }
+
+  static String encode(ChangeKey key) {
+    ByteBuffer buffer = ByteBuffer.allocate(LENGTH).putLong(key.changedAt()).putLong(key.id());
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  static ChangeKey decode(String cursor) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new APIException("Invalid cursor");
+    }
+    if (bytes.length != LENGTH) {
+      throw new APIException("Invalid cursor");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new ChangeKey(buffer.getLong(), buffer.getLong());
+  }
+}
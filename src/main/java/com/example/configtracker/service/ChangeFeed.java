@@ -0,0 +1,257 @@
+package com.example.configtracker.service;
+
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.dto.ConfigChangeItemDTO;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes committed config changes to Server-Sent Events subscribers. Every event gets the next
+ * revision number, sent as the SSE id {@code <boot id>-<revision>}; the most recent events are kept
+ * in a ring so a client reconnecting with {@code Last-Event-ID} receives exactly what it missed.
+ * Revisions start again after a restart, so an id from another boot always gets a resync. Changes are
+ * published while the repository still holds the rule type's write lock, so the revisions of one
+ * rule type's events follow the order its changes were committed in.
+ *
+ * <p>Publishing only takes the next revision and hands the event to a lock-free queue, so writers
+ * never wait for each other or for subscribers here. A dispatcher thread puts the events into the
+ * ring and each subscriber's bounded queue in revision order; sending happens on background
+ * threads, one drain at a time per subscriber. A subscriber whose queue overflows is disconnected
+ * and can resume from its last revision.
+ */
+@Component
+public class ChangeFeed {
+
+  public static final String CHANGE_EVENT = "change";
+  public static final String DELETED_EVENT = "deleted";
+  // sent instead of a replay when the requested revision is no longer in the ring
+  public static final String RESYNC_EVENT = "resync";
+
+  private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+  private record FeedEvent(long revision, String name, ConfigChangeItemDTO change) {
+  }
+
+  private final FeedProperties properties;
+  private final FeedEvent[] history;
+  private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+  private final ExecutorService senders;
+  private final String bootId;
+  private final AtomicLong assigned = new AtomicLong();
+  private final BlockingQueue<FeedEvent> published = new LinkedTransferQueue<>();
+  private final Thread dispatcher;
+
+  // last revision in the ring, guarded by this
+  private long revision;
+
+  public ChangeFeed(FeedProperties properties) {
+    this(properties, InternalThreads.PLATFORM, new StoreRevision());
+  }
+
+  @Autowired
+  public ChangeFeed(FeedProperties properties, InternalThreads threads, StoreRevision storeRevision) {
+    this.properties = properties;
+    this.bootId = storeRevision.bootId();
+    this.history = new FeedEvent[properties.getHistorySize()];
+    // sends block on slow clients, which is cheap with virtual threads
+    this.senders = threads.newExecutor("change-feed");
+    this.dispatcher = threads.factory("change-feed-dispatcher").newThread(this::dispatch);
+    this.dispatcher.start();
+  }
+
+  public synchronized long currentRevision() {
+    return revision;
+  }
+
+  public void changeSaved(ConfigChangeItemDTO change) {
+    publish(CHANGE_EVENT, change);
+  }
+
+  public void changeDeleted(ConfigChangeItemDTO change) {
+    publish(DELETED_EVENT, change);
+  }
+
+  /**
+   * Opens a feed of changes to {@code ruleTypeId} ({@code null} for all rule types). With a
+   * {@code lastEventId} the events after it are replayed first.
+   */
+  public SseEmitter subscribe(Long ruleTypeId, String lastEventId) {
+    Long lastRevision = lastEventId == null ? null : revisionOf(lastEventId);
+    SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+    List<FeedEvent> backlog = new ArrayList<>();
+    Subscriber subscriber;
+    // under the dispatch lock, so nothing is dispatched between the replay and the registration
+    synchronized (this) {
+      long seen = revision;
+      if (lastRevision != null) {
+        // events numbered but not yet dispatched reach the new subscriber live
+        long oldest = Math.max(1, revision - history.length + 1);
+        if (lastRevision < 0 || lastRevision > assigned.get() || lastRevision + 1 < oldest) {
+          backlog.add(new FeedEvent(revision, RESYNC_EVENT, null));
+        } else {
+          seen = lastRevision;
+          for (long r = lastRevision + 1; r <= revision; r++) {
+            FeedEvent event = history[slot(r)];
+            if (ruleTypeId == null || ruleTypeId.equals(event.change().getRuleTypeId())) {
+              backlog.add(event);
+            }
+          }
+        }
+      }
+      subscriber = new Subscriber(emitter, ruleTypeId, seen,
+          properties.getSubscriberQueueCapacity() + backlog.size(), MDC.getCopyOfContextMap());
+      backlog.forEach(subscriber.pending::add);
+      subscribers.add(subscriber);
+    }
+    emitter.onCompletion(subscriber::close);
+    emitter.onTimeout(subscriber::close);
+    emitter.onError(e -> subscriber.close());
+    subscriber.schedule();
+    return emitter;
+  }
+
+  @PreDestroy
+  public void stop() {
+    subscribers.forEach(subscriber -> {
+      subscriber.close();
+      subscriber.emitter.complete();
+    });
+    dispatcher.interrupt();
+    senders.shutdownNow();
+  }
+
+  private void publish(String name, ConfigChangeItemDTO change) {
+    published.add(new FeedEvent(assigned.incrementAndGet(), name, change));
+  }
+
+  private void dispatch() {
+    // writers enqueue in any order once numbered; hold events back until their predecessors arrive
+    PriorityQueue<FeedEvent> waiting = new PriorityQueue<>(Comparator.comparingLong(FeedEvent::revision));
+    try {
+      while (true) {
+        waiting.add(published.take());
+        published.drainTo(waiting);
+        synchronized (this) {
+          while (!waiting.isEmpty() && waiting.peek().revision() == revision + 1) {
+            FeedEvent event = waiting.poll();
+            revision = event.revision();
+            history[slot(revision)] = event;
+            for (Subscriber subscriber : subscribers) {
+              subscriber.offer(event);
+            }
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Revision of an event id issued by this process, or -1 for any other id. */
+  private long revisionOf(String eventId) {
+    String prefix = bootId + "-";
+    if (eventId.startsWith(prefix)) {
+      try {
+        return Math.max(Long.parseLong(eventId.substring(prefix.length())), -1);
+      } catch (NumberFormatException e) {
+        // not one of ours
+      }
+    }
+    return -1;
+  }
+
+  private int slot(long revision) {
+    return (int) (revision % history.length);
+  }
+
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final Long ruleTypeId;
+    // events up to this revision were replayed or already received before subscribing
+    private final long seen;
+    private final BlockingQueue<FeedEvent> pending;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // logging context of the subscribing request, restored while sending
+    private final Map<String, String> context;
+    private volatile boolean closed;
+
+    private Subscriber(SseEmitter emitter, Long ruleTypeId, long seen, int capacity,
+        Map<String, String> context) {
+      this.emitter = emitter;
+      this.ruleTypeId = ruleTypeId;
+      this.seen = seen;
+      this.pending = new ArrayBlockingQueue<>(capacity);
+      this.context = context;
+    }
+
+    private void offer(FeedEvent event) {
+      if (closed || event.revision() <= seen
+          || (ruleTypeId != null && !ruleTypeId.equals(event.change().getRuleTypeId()))) {
+        return;
+      }
+      if (!pending.offer(event)) {
+        log.warn("Disconnecting change feed subscriber that fell {} events behind", pending.size());
+        close();
+        emitter.complete();
+        return;
+      }
+      schedule();
+    }
+
+    private void schedule() {
+      if (!closed && !pending.isEmpty() && draining.compareAndSet(false, true)) {
+        senders.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      if (context != null) {
+        MDC.setContextMap(context);
+      }
+      try {
+        FeedEvent event;
+        while (!closed && (event = pending.poll()) != null) {
+          SseEmitter.SseEventBuilder builder = SseEmitter.event()
+              .id(bootId + "-" + event.revision())
+              .name(event.name());
+          emitter.send(event.change() == null ? builder.data("") : builder.data(event.change(),
+              MediaType.APPLICATION_JSON));
+        }
+      } catch (IOException | IllegalStateException e) {
+        // client went away or the emitter already completed
+        close();
+      } finally {
+        MDC.clear();
+        draining.set(false);
+      }
+      // an event offered after the loop saw an empty queue still needs a drain
+      schedule();
+    }
+
+    private void close() {
+      closed = true;
+      subscribers.remove(this);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.configtracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters for the config change service. Timers publish percentile histograms so latency can be
+ * aggregated across instances and read from {@code /actuator/metrics}.
+ */
+@Component
+public class ConfigChangeMetrics {
+
+  public enum Stage {
+    LOOKUP("lookup"),
+    DUPLICATE_CHECK("duplicate-check"),
+    VALIDATION("validation"),
+    SAVE("save"),
+    NOTIFY("notify");
+
+    private final String tag;
+
+    Stage(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+  private final Timer logChange;
+  private final Timer listChanges;
+  private final Counter duplicates;
+  private final Counter invalid;
+
+  public ConfigChangeMetrics(MeterRegistry registry) {
+    for (Stage stage : Stage.values()) {
+      stages.put(stage, timer("configtracker.changes.log.stage", "Time spent in one stage of logging a change")
+          .tag("stage", stage.tag)
+          .register(registry));
+    }
+    logChange = timer("configtracker.changes.log", "Time to log one config change").register(registry);
+    listChanges = timer("configtracker.changes.list", "Time to build the grouped change history")
+        .register(registry);
+    duplicates = Counter.builder("configtracker.changes.rejected")
+        .description("Config changes rejected before being stored")
+        .tag("reason", "duplicate")
+        .register(registry);
+    invalid = Counter.builder("configtracker.changes.rejected")
+        .description("Config changes rejected before being stored")
+        .tag("reason", "invalid")
+        .register(registry);
+  }
+
+  /** Records the stage as having run since {@code startNanos} and returns the time it ended. */
+  public long stageDone(Stage stage, long startNanos) {
+    long now = System.nanoTime();
+    stages.get(stage).record(now - startNanos, TimeUnit.NANOSECONDS);
+    return now;
+  }
+
+  public void logChangeDone(long startNanos) {
+    logChange.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void listChangesDone(long startNanos) {
+    listChanges.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void duplicateRejected() {
+    duplicates.increment();
+  }
+
+  public void invalidRejected() {
+    invalid.increment();
+  }
+
+  public void rejected(int duplicateCount, int invalidCount) {
+    duplicates.increment(duplicateCount);
+    invalid.increment(invalidCount);
+  }
+
+  private static Timer.Builder timer(String name, String description) {
+    return Timer.builder(name)
+        .description(description)
+        .publishPercentileHistogram()
+        .publishPercentiles(0.5, 0.95, 0.99);
+  }
+}
@@ -1,16 +1,33 @@
 package com.example.configtracker.service;
 
+import com.example.configtracker.dto.ConfigChangeBatchResultDTO;
+import com.example.configtracker.dto.ConfigChangeItemDTO;
 import com.example.configtracker.dto.ConfigChangeListDTO;
+import com.example.configtracker.dto.ConfigChangePageDTO;
+import com.example.configtracker.dto.EffectiveValueDTO;
+import com.example.configtracker.dto.RuleTypeStatsDTO;
 import com.example.configtracker.entities.ConfigChange;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface
 ConfigChangeService {
 
   public ConfigChange logChange(ConfigChange change);
+  public ConfigChangeBatchResultDTO logChanges(List<ConfigChange> changes);
   public List<ConfigChangeListDTO> listChanges(Optional<String> type, Optional<LocalDateTime> from, Optional<LocalDateTime> to);
+  public ConfigChangePageDTO listChangesPage(Optional<String> type, Optional<LocalDateTime> from, Optional<LocalDateTime> to,
+      Optional<String> cursor, int limit);
+  public void exportChanges(Optional<String> type, Optional<LocalDateTime> from, Optional<LocalDateTime> to,
+      Consumer<ConfigChangeItemDTO> sink);
+  public EffectiveValueDTO getCurrentValue(Long ruleTypeId);
+  public EffectiveValueDTO getCurrentValueByName(String ruleName);
+  public List<EffectiveValueDTO> listCurrentValues();
+  public List<EffectiveValueDTO> listValuesAsOf(LocalDateTime at, Optional<String> type);
+  public List<RuleTypeStatsDTO> listStats(int hours);
+  public RuleTypeStatsDTO getStats(Long ruleTypeId, int hours);
   public ConfigChange getChangeById(Long id);
   ConfigChange delete(Long id);
 }
@@ -1,16 +1,35 @@
 package com.example.configtracker.service;
 
+import com.example.configtracker.dto.BatchItemStatus;
+import com.example.configtracker.dto.ConfigChangeBatchItemDTO;
+import com.example.configtracker.dto.ConfigChangeBatchResultDTO;
+import com.example.configtracker.dto.ConfigChangeItemDTO;
 import com.example.configtracker.dto.ConfigChangeListDTO;
+import com.example.configtracker.dto.ConfigChangePageDTO;
+import com.example.configtracker.dto.EffectiveValueDTO;
 import com.example.configtracker.dto.ConfigChangeResponceDTO;
+import com.example.configtracker.dto.RuleTypeStatsDTO;
 import com.example.configtracker.entities.ConfigChange;
 import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.entities.ValueValidator;
 import com.example.configtracker.exception.APIException;
 import com.example.configtracker.exception.ResourceNotFoundException;
+import com.example.configtracker.repo.ChangeKey;
+import com.example.configtracker.repo.ChangeStats;
 import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.service.ConfigChangeMetrics.Stage;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,54 +48,252 @@ public class ConfigChangeServiceImpl implements ConfigChangeService {
   @Autowired
   private RuleTypeService ruleTypeService;
 
+  @Autowired
+  private Validator validator;
+
+  @Autowired
+  private ChangeFeed changeFeed;
+
+  @Autowired
+  private StoreRevision storeRevision;
+
+  @Autowired
+  private ConfigChangeMetrics metrics;
+
   private static final Logger log = LoggerFactory.getLogger(ConfigChangeServiceImpl.class);
 
+  private static final String DUPLICATE_MESSAGE =
+      "An identical configuration change already exists. Duplicate not allowed.";
+
+  static final int MAX_PAGE_SIZE = 1000;
+
+  static final int MAX_BATCH_SIZE = 1000;
+
   @Override
   public ConfigChange logChange(ConfigChange change) {
+    long start = System.nanoTime();
 
     RuleType ruleType = ruleTypeService.getRuleTypeById(change.getRuleTypeId());
+    long stageStart = metrics.stageDone(Stage.LOOKUP, start);
 
-    boolean duplicateExists = configChangeRepo.findAll().stream()
-        .anyMatch(existing ->
-            existing.getRuleTypeId().equals(change.getRuleTypeId()) &&
-                existing.getCurrentValue().equals(change.getCurrentValue()) &&
-                existing.isCritical() == change.isCritical()
-        );
-
-    if (duplicateExists) {
-      throw new APIException("An identical configuration change already exists. Duplicate not allowed.");
+    if (configChangeRepo.existsDuplicate(change.getRuleTypeId(), change.getCurrentValue(), change.isCritical())) {
+      metrics.duplicateRejected();
+      throw new APIException(DUPLICATE_MESSAGE);
     }
+    stageStart = metrics.stageDone(Stage.DUPLICATE_CHECK, stageStart);
 
-    validateValueType(change, ruleType);
+    try {
+      validateValueType(change, ruleType);
+    } catch (IllegalArgumentException e) {
+      metrics.invalidRejected();
+      throw e;
+    }
+    stageStart = metrics.stageDone(Stage.VALIDATION, stageStart);
 
     change.setChangedAt(LocalDateTime.now());
     change.setId(configChangeRepo.generateId()); // generateId() is a simple counter in repo
 
-    configChangeRepo.save(change);
+    // re-checked atomically on insert in case an identical request raced past the check above;
+    // the feed event is published under the same lock, so it follows the commit order
+    String ruleName = ruleType.getName();
+    if (!configChangeRepo.saveIfUnique(change, saved -> changeFeed.changeSaved(toItemDTO(saved, ruleName)))) {
+      metrics.duplicateRejected();
+      throw new APIException(DUPLICATE_MESSAGE);
+    }
+    storeRevision.increment();
+    stageStart = metrics.stageDone(Stage.SAVE, stageStart);
 
     if (change.isCritical()) {
       log.info("Critical configuration change detected: {}", change);
       notificationService.notify("Critical configuration change detected: " + change);
     }
+    metrics.stageDone(Stage.NOTIFY, stageStart);
 
+    metrics.logChangeDone(start);
     return change;
   }
 
+  @Override
+  public ConfigChangeBatchResultDTO logChanges(List<ConfigChange> changes) {
+    if (changes.size() > MAX_BATCH_SIZE) {
+      throw new APIException("A batch must not contain more than " + MAX_BATCH_SIZE + " changes");
+    }
+
+    ConfigChangeBatchItemDTO[] results = new ConfigChangeBatchItemDTO[changes.size()];
+    // every rule type is looked up once, so the whole batch is validated against the same snapshot
+    Map<Long, Optional<RuleType>> ruleTypes = new HashMap<>();
+    List<ConfigChange> valid = new ArrayList<>(changes.size());
+    List<Integer> validIndexes = new ArrayList<>(changes.size());
+    for (int i = 0; i < changes.size(); i++) {
+      ConfigChange change = changes.get(i);
+      String error = validateBatchItem(change, ruleTypes);
+      if (error != null) {
+        results[i] = new ConfigChangeBatchItemDTO(i, BatchItemStatus.INVALID, null, error);
+      } else {
+        valid.add(change);
+        validIndexes.add(i);
+      }
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    long nextId = valid.isEmpty() ? 0 : configChangeRepo.generateIds(valid.size());
+    for (ConfigChange change : valid) {
+      change.setChangedAt(now);
+      change.setId(nextId++);
+    }
+
+    boolean[] saved = configChangeRepo.saveAllIfUnique(valid, change -> changeFeed.changeSaved(
+        toItemDTO(change, ruleTypes.get(change.getRuleTypeId()).orElseThrow().getName())));
+    // a batch that stored nothing leaves every cached ETag valid
+    for (boolean stored : saved) {
+      if (stored) {
+        storeRevision.increment();
+        break;
+      }
+    }
+
+    int accepted = 0;
+    for (int i = 0; i < valid.size(); i++) {
+      ConfigChange change = valid.get(i);
+      int index = validIndexes.get(i);
+      if (!saved[i]) {
+        results[index] = new ConfigChangeBatchItemDTO(index, BatchItemStatus.DUPLICATE, null, DUPLICATE_MESSAGE);
+        continue;
+      }
+      accepted++;
+      results[index] = new ConfigChangeBatchItemDTO(index, BatchItemStatus.ACCEPTED, change.getId(), null);
+      if (change.isCritical()) {
+        log.info("Critical configuration change detected: {}", change);
+        notificationService.notify("Critical configuration change detected: " + change);
+      }
+    }
+    log.info("Batch of {} config changes processed: {} accepted, {} duplicate, {} invalid", changes.size(),
+        accepted, valid.size() - accepted, changes.size() - valid.size());
+    metrics.rejected(valid.size() - accepted, changes.size() - valid.size());
+
+    return new ConfigChangeBatchResultDTO(accepted, valid.size() - accepted, changes.size() - valid.size(),
+        List.of(results));
+  }
+
   @Override
   public List<ConfigChangeListDTO> listChanges(Optional<String> typeName, Optional<LocalDateTime> from,
       Optional<LocalDateTime> to) {
-    List<ConfigChange> changes = configChangeRepo.findAll().stream()
-        .filter(c -> typeName.map(name ->
-            ruleTypeService.getRuleTypeById(c.getRuleTypeId()).getName().equalsIgnoreCase(name)
-        ).orElse(true))
-        .filter(c -> from.map(f -> c.getChangedAt().isAfter(f)).orElse(true))
-        .filter(c -> to.map(t -> c.getChangedAt().isBefore(t)).orElse(true))
+    long start = System.nanoTime();
+    try {
+      return findHistories(typeName, from, to);
+    } finally {
+      metrics.listChangesDone(start);
+    }
+  }
+
+  @Override
+  public ConfigChangePageDTO listChangesPage(Optional<String> typeName, Optional<LocalDateTime> from,
+      Optional<LocalDateTime> to, Optional<String> cursor, int limit) {
+    if (limit < 1) {
+      throw new APIException("Page limit must be at least 1");
+    }
+    int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+    ChangeKey after = cursor.map(ChangeCursor::decode).orElse(null);
+
+    Long ruleTypeId = null;
+    if (typeName.isPresent()) {
+      Optional<RuleType> ruleType = ruleTypeService.findRuleTypeByName(typeName.get());
+      if (ruleType.isEmpty()) {
+        return new ConfigChangePageDTO(List.of(), null);
+      }
+      ruleTypeId = ruleType.get().getId();
+    }
+
+    // one extra row tells whether another page follows without a second lookup
+    List<ConfigChange> changes = configChangeRepo.findPage(ruleTypeId, from.orElse(null), to.orElse(null),
+        after, pageSize + 1);
+    boolean hasMore = changes.size() > pageSize;
+    if (hasMore) {
+      changes = changes.subList(0, pageSize);
+    }
+
+    Map<Long, String> ruleNames = new HashMap<>();
+    List<ConfigChangeItemDTO> items = changes.stream()
+        .map(c -> toItemDTO(c, ruleNames))
         .toList();
+    String nextCursor = hasMore ? ChangeCursor.encode(ChangeKey.of(changes.get(changes.size() - 1))) : null;
+    return new ConfigChangePageDTO(items, nextCursor);
+  }
 
-    if (changes.isEmpty()) {
-      throw new APIException("No configuration changes found");
+  @Override
+  public void exportChanges(Optional<String> typeName, Optional<LocalDateTime> from, Optional<LocalDateTime> to,
+      Consumer<ConfigChangeItemDTO> sink) {
+    Long ruleTypeId = null;
+    if (typeName.isPresent()) {
+      Optional<RuleType> ruleType = ruleTypeService.findRuleTypeByName(typeName.get());
+      if (ruleType.isEmpty()) {
+        return;
+      }
+      ruleTypeId = ruleType.get().getId();
+    }
+    // only rule names are kept across the export; each change is handed on as soon as it is read
+    Map<Long, String> ruleNames = new HashMap<>();
+    configChangeRepo.forEachInRange(ruleTypeId, from.orElse(null), to.orElse(null),
+        change -> sink.accept(toItemDTO(change, ruleNames)));
+  }
+
+  @Override
+  public EffectiveValueDTO getCurrentValue(Long ruleTypeId) {
+    return toEffectiveValueDTO(ruleTypeService.getRuleTypeById(ruleTypeId));
+  }
+
+  @Override
+  public EffectiveValueDTO getCurrentValueByName(String ruleName) {
+    RuleType ruleType = ruleTypeService.findRuleTypeByName(ruleName)
+        .orElseThrow(() -> new ResourceNotFoundException("RuleType", "name", ruleName));
+    return toEffectiveValueDTO(ruleType);
+  }
+
+  @Override
+  public List<EffectiveValueDTO> listCurrentValues() {
+    List<EffectiveValueDTO> values = new ArrayList<>();
+    configChangeRepo.findAllLatest().forEach((ruleTypeId, change) ->
+        // changes can outlive their rule type; those have no current value to report
+        ruleTypeService.findRuleTypeById(ruleTypeId)
+            .ifPresent(ruleType -> values.add(toEffectiveValueDTO(ruleType, change))));
+    return values;
+  }
+
+  @Override
+  public List<EffectiveValueDTO> listValuesAsOf(LocalDateTime at, Optional<String> typeName) {
+    if (typeName.isPresent()) {
+      return ruleTypeService.findRuleTypeByName(typeName.get())
+          .flatMap(ruleType -> configChangeRepo.findAsOf(ruleType.getId(), at)
+              .map(change -> toEffectiveValueDTO(ruleType, change)))
+          .map(List::of)
+          .orElse(List.of());
     }
-    return toHistoryDTO(changes);
+    List<EffectiveValueDTO> values = new ArrayList<>();
+    configChangeRepo.findAllAsOf(at).forEach((ruleTypeId, change) ->
+        ruleTypeService.findRuleTypeById(ruleTypeId)
+            .ifPresent(ruleType -> values.add(toEffectiveValueDTO(ruleType, change))));
+    return values;
+  }
+
+  @Override
+  public List<RuleTypeStatsDTO> listStats(int hours) {
+    checkStatsWindow(hours);
+    List<RuleTypeStatsDTO> all = new ArrayList<>();
+    configChangeRepo.findAllStats(LocalDateTime.now(), hours).forEach((ruleTypeId, stats) ->
+        ruleTypeService.findRuleTypeById(ruleTypeId)
+            .ifPresent(ruleType -> all.add(toStatsDTO(ruleType, stats))));
+    // busiest rule types first; the sort is stable, so ties stay in rule type id order
+    all.sort(Comparator.comparingLong(RuleTypeStatsDTO::getChangesInWindow).reversed());
+    return all;
+  }
+
+  @Override
+  public RuleTypeStatsDTO getStats(Long ruleTypeId, int hours) {
+    checkStatsWindow(hours);
+    RuleType ruleType = ruleTypeService.getRuleTypeById(ruleTypeId);
+    LocalDateTime now = LocalDateTime.now();
+    return toStatsDTO(ruleType, configChangeRepo.findStats(ruleTypeId, now, hours)
+        .orElseGet(() -> ChangeStats.none(now, hours)));
   }
 
   @Override
@@ -89,68 +306,153 @@ public class ConfigChangeServiceImpl implements ConfigChangeService {
   public ConfigChange delete(Long id) {
     ConfigChange configChange = configChangeRepo.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Config change", "configChangeId", id));
-    configChangeRepo.deleteById(id);
+    String ruleName = ruleTypeService.findRuleTypeById(configChange.getRuleTypeId())
+        .map(RuleType::getName).orElse(null);
+    // nothing changes if a concurrent request removed or moved the row first
+    configChangeRepo.deleteById(id, removed -> {
+      storeRevision.increment();
+      changeFeed.changeDeleted(toItemDTO(removed, ruleName));
+    });
     return configChange;
   }
 
+  private List<ConfigChangeListDTO> findHistories(Optional<String> typeName, Optional<LocalDateTime> from,
+      Optional<LocalDateTime> to) {
+    List<ConfigChangeListDTO> result;
+    if (typeName.isPresent()) {
+      // resolve the name once and read only that rule's history
+      result = ruleTypeService.findRuleTypeByName(typeName.get())
+          .map(ruleType -> toHistoryDTO(ruleType,
+              configChangeRepo.findByRuleTypeIdAndChangedAtBetween(ruleType.getId(), from.orElse(null),
+                  to.orElse(null))))
+          .filter(dto -> !dto.getHistory().isEmpty())
+          .map(List::of)
+          .orElse(List.of());
+    } else {
+      result = configChangeRepo.findHistoriesByChangedAtBetween(from.orElse(null), to.orElse(null))
+          .entrySet()
+          .stream()
+          .map(entry -> toHistoryDTO(ruleTypeService.getRuleTypeById(entry.getKey()), entry.getValue()))
+          .toList();
+    }
+
+    if (result.isEmpty()) {
+      throw new APIException("No configuration changes found");
+    }
+    return result;
+  }
+
+  // returns why the change cannot be accepted, or null when it is valid
+  private String validateBatchItem(ConfigChange change, Map<Long, Optional<RuleType>> ruleTypes) {
+    if (change == null) {
+      return "Change must not be null";
+    }
+    Set<ConstraintViolation<ConfigChange>> violations = validator.validate(change);
+    if (!violations.isEmpty()) {
+      return violations.stream()
+          .map(ConstraintViolation::getMessage)
+          .sorted()
+          .collect(Collectors.joining("; "));
+    }
+    Optional<RuleType> ruleType = ruleTypes.computeIfAbsent(change.getRuleTypeId(),
+        ruleTypeService::findRuleTypeById);
+    if (ruleType.isEmpty()) {
+      return "RuleType not found with id: " + change.getRuleTypeId();
+    }
+    try {
+      validateValueType(change, ruleType.get());
+    } catch (IllegalArgumentException e) {
+      return e.getMessage();
+    }
+    return null;
+  }
+
   private void validateValueType(ConfigChange change, RuleType ruleType) {
-    String type = ruleType.getValueType();
-    String value = change.getCurrentValue();
-
-    switch (type) {
-      case "INTEGER":
-        try {
-          Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-          throw new IllegalArgumentException(
-              "Value for rule " + ruleType.getName() + " must be an integer and not contains more than 9 digits");
-        }
-        break;
-      case "BOOLEAN":
-        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
-          throw new IllegalArgumentException(
-              "Value for rule " + ruleType.getName() + " must be boolean");
-        }
-        break;
-      case "STRING":
-        if (value.length() > 200) {
-          throw new IllegalArgumentException(
-              "Value for rule " + ruleType.getName() + " must not exceed 200 characters");
-        }
-        if (!value.matches(".*[A-Za-z].*")) {
-          throw new IllegalArgumentException(
-              "Value for rule " + ruleType.getName() + " must contain at least one English letter");
-        }
-        break;
-      default:
-        throw new IllegalArgumentException(
-            "Unknown value type for rule " + ruleType.getName());
-    }
-  }
-
-  private List<ConfigChangeListDTO> toHistoryDTO(List<ConfigChange> changes) {
-    return changes.stream()
-        .collect(Collectors.groupingBy(ConfigChange::getRuleTypeId))
-        .entrySet()
-        .stream()
-        .map(entry -> {
-          Long ruleTypeId = entry.getKey();
-          String ruleName = ruleTypeService.getRuleTypeById(ruleTypeId).getName();
-
-          List<ConfigChangeResponceDTO> history = entry.getValue().stream()
-              .sorted(Comparator.comparing(ConfigChange::getChangedAt))
-              .map(c -> new ConfigChangeResponceDTO(
-                  c.getId(),
-                  c.getCurrentValue(),
-                  c.getChangedBy(),
-                  c.getChangedAt(),
-                  c.isCritical()
-              ))
-              .toList();
-
-          return new ConfigChangeListDTO(ruleTypeId, ruleName, history);
-        })
+    ValueValidator validator = ruleType.getValidator();
+    if (validator == null) {
+      throw new IllegalArgumentException(
+          "Unknown value type for rule " + ruleType.getName());
+    }
+    String problem = validator.check(change.getCurrentValue());
+    if (problem != null) {
+      throw new IllegalArgumentException(
+          "Value for rule " + ruleType.getName() + " " + problem);
+    }
+  }
+
+  // changes can outlive their rule type; those are listed with a null rule name
+  private ConfigChangeItemDTO toItemDTO(ConfigChange change, Map<Long, String> ruleNames) {
+    Long ruleTypeId = change.getRuleTypeId();
+    if (!ruleNames.containsKey(ruleTypeId)) {
+      ruleNames.put(ruleTypeId, ruleTypeService.findRuleTypeById(ruleTypeId).map(RuleType::getName).orElse(null));
+    }
+    return toItemDTO(change, ruleNames.get(ruleTypeId));
+  }
+
+  private ConfigChangeItemDTO toItemDTO(ConfigChange change, String ruleName) {
+    return new ConfigChangeItemDTO(
+        change.getId(),
+        change.getRuleTypeId(),
+        ruleName,
+        change.getCurrentValue(),
+        change.getChangedBy(),
+        change.getChangedAt(),
+        change.isCritical()
+    );
+  }
+
+  private static void checkStatsWindow(int hours) {
+    if (hours < 1 || hours > ChangeStats.MAX_HOURS) {
+      throw new APIException("Stats window must be between 1 and " + ChangeStats.MAX_HOURS + " hours");
+    }
+  }
+
+  private RuleTypeStatsDTO toStatsDTO(RuleType ruleType, ChangeStats stats) {
+    return new RuleTypeStatsDTO(
+        ruleType.getId(),
+        ruleType.getName(),
+        stats.changes(),
+        stats.criticalChanges(),
+        stats.changes() == 0 ? 0 : (double) stats.criticalChanges() / stats.changes(),
+        stats.distinctAuthors(),
+        stats.lastChangedAt(),
+        stats.windowStart(),
+        stats.changesInWindow(),
+        Arrays.stream(stats.hourly()).boxed().toList()
+    );
+  }
+
+  private EffectiveValueDTO toEffectiveValueDTO(RuleType ruleType) {
+    ConfigChange change = configChangeRepo.findLatestByRuleTypeId(ruleType.getId())
+        .orElseThrow(() -> new ResourceNotFoundException("Current value", "ruleTypeId", ruleType.getId()));
+    return toEffectiveValueDTO(ruleType, change);
+  }
+
+  private EffectiveValueDTO toEffectiveValueDTO(RuleType ruleType, ConfigChange change) {
+    return new EffectiveValueDTO(
+        ruleType.getId(),
+        ruleType.getName(),
+        ruleType.getValueType(),
+        change.getCurrentValue(),
+        change.getId(),
+        change.getChangedBy(),
+        change.getChangedAt(),
+        change.isCritical()
+    );
+  }
+
+  // histories come from the repo already grouped by rule type and sorted by changedAt
+  private ConfigChangeListDTO toHistoryDTO(RuleType ruleType, List<ConfigChange> changes) {
+    List<ConfigChangeResponceDTO> history = changes.stream()
+        .map(c -> new ConfigChangeResponceDTO(
+            c.getId(),
+            c.getCurrentValue(),
+            c.getChangedBy(),
+            c.getChangedAt(),
+            c.isCritical()
+        ))
         .toList();
+    return new ConfigChangeListDTO(ruleType.getId(), ruleType.getName(), history);
   }
 
 }
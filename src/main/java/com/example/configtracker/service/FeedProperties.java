@@ -0,0 +1,15 @@
+package com.example.configtracker.service;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "configtracker.feed")
+public class FeedProperties {
+
+  // events kept for clients resuming with Last-Event-ID
+  private int historySize = 4096;
+  private int subscriberQueueCapacity = 1024;
+  private Duration emitterTimeout = Duration.ofMinutes(30);
+}
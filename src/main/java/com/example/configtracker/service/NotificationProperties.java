@@ -0,0 +1,17 @@
+package com.example.configtracker.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "configtracker.notifications")
+public class NotificationProperties {
+
+  private Path file = Path.of("logs", "notifications.log");
+  private int queueCapacity = 10_000;
+  private int maxBatchSize = 512;
+  private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+  private Duration blockTimeout = Duration.ofMillis(50);
+}
@@ -1,34 +1,242 @@
 package com.example.configtracker.service;
 
-import java.io.File;
-import java.io.FileWriter;
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.config.MdcTaskDecorator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Appends notifications to a log file without blocking the caller on disk I/O. Notifications are
+ * queued in a bounded buffer and written by a single background thread that keeps the file open
+ * and flushes once per batch. When the buffer is full the configured {@link OverflowPolicy}
+ * decides which notification is dropped. Once {@link #stop} has begun new notifications are
+ * rejected, and everything queued before it is written before it returns.
+ */
 @Service
 public class NotificationServiceImpl implements NotificationService {
 
-  private static final String DIRECTORY_PATH = "logs";
-  private static final String FILE_PATH = DIRECTORY_PATH + "/notifications.log";
+  private static final Logger log = LoggerFactory.getLogger(NotificationServiceImpl.class);
+
+  private final NotificationProperties properties;
+  private final InternalThreads threads;
+  private final MdcTaskDecorator mdcTaskDecorator;
+  private final BlockingQueue<Pending> queue;
+  private final Counter dropped;
+  private final Counter rejected;
+  private final Counter written;
+  private final Counter writeFailures;
+  private final Timer latency;
+
+  // lost runs on the writer thread in the caller's MDC if the line cannot be written
+  private record Pending(String text, long queuedAt, Runnable lost) {
+  }
+
+  // notify holds the read lock while queueing so stop cannot slip in between the check and the offer
+  private final ReadWriteLock shutdown = new ReentrantReadWriteLock();
+  private boolean stopped;
+  private volatile boolean running;
+  private Thread writer;
+  private BufferedWriter out;
+
+  public NotificationServiceImpl(NotificationProperties properties, MeterRegistry meterRegistry) {
+    this(properties, meterRegistry, InternalThreads.PLATFORM);
+  }
+
+  public NotificationServiceImpl(NotificationProperties properties, MeterRegistry meterRegistry,
+      InternalThreads threads) {
+    this(properties, meterRegistry, threads, new MdcTaskDecorator());
+  }
+
+  @Autowired
+  public NotificationServiceImpl(NotificationProperties properties, MeterRegistry meterRegistry,
+      InternalThreads threads, MdcTaskDecorator mdcTaskDecorator) {
+    this.properties = properties;
+    this.threads = threads;
+    this.mdcTaskDecorator = mdcTaskDecorator;
+    this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    Gauge.builder("configtracker.notifications.queue.depth", queue, BlockingQueue::size)
+        .description("Notifications waiting to be written")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("configtracker.notifications.dropped")
+        .description("Notifications discarded because the queue was full")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("configtracker.notifications.rejected")
+        .description("Notifications discarded because the service was shutting down")
+        .register(meterRegistry);
+    this.written = Counter.builder("configtracker.notifications.written")
+        .description("Notifications written to the notification log")
+        .register(meterRegistry);
+    this.writeFailures = Counter.builder("configtracker.notifications.write.failures")
+        .description("Notifications lost because the notification log could not be written")
+        .register(meterRegistry);
+    this.latency = Timer.builder("configtracker.notifications.latency")
+        .description("Time from notify() until the notification is flushed to the notification log")
+        .publishPercentileHistogram()
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    writer = threads.factory("notification-writer").newThread(this::writeLoop);
+    writer.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    shutdown.writeLock().lock();
+    try {
+      stopped = true;
+    } finally {
+      shutdown.writeLock().unlock();
+    }
+    // no interrupt: it would close the file channel in the middle of a write
+    running = false;
+    if (writer != null) {
+      try {
+        // the writer drains the queue and closes the file itself, so there is nothing to race
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 
   @Override
   public void notify(Object change) {
+    String text = LocalDateTime.now() + " - " + change;
+    Pending line = new Pending(text, System.nanoTime(),
+        mdcTaskDecorator.decorate(() -> log.warn("Lost notification: {}", text)));
+    boolean queued;
+    shutdown.readLock().lock();
     try {
-      File directory = new File(DIRECTORY_PATH);
-      if (!directory.exists()) {
-        directory.mkdirs();
+      if (stopped) {
+        rejected.increment();
+        log.warn("Notification service is stopped, rejected notification: {}", text);
+        return;
       }
+      queued = switch (properties.getOverflowPolicy()) {
+        case DROP_NEWEST -> queue.offer(line);
+        case DROP_OLDEST -> offerDroppingOldest(line);
+        case BLOCK -> offerWaiting(line);
+      };
+    } finally {
+      shutdown.readLock().unlock();
+    }
+    if (!queued) {
+      dropped.increment();
+      log.warn("Notification queue is full, dropped notification: {}", line.text());
+    }
+  }
 
-      try (FileWriter fw = new FileWriter(FILE_PATH, true);
-          PrintWriter pw = new PrintWriter(fw)) {
+  private boolean offerDroppingOldest(Pending line) {
+    while (!queue.offer(line)) {
+      if (queue.poll() != null) {
+        dropped.increment();
+      }
+    }
+    return true;
+  }
+
+  private boolean offerWaiting(Pending line) {
+    try {
+      return queue.offer(line, properties.getBlockTimeout().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
 
-        pw.println(LocalDateTime.now() + " - " + change.toString());
+  private void writeLoop() {
+    List<Pending> batch = new ArrayList<>(properties.getMaxBatchSize());
+    try {
+      while (running || !queue.isEmpty()) {
+        try {
+          Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            continue;
+          }
+          batch.add(first);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        queue.drainTo(batch, properties.getMaxBatchSize() - 1);
+        writeBatch(batch);
+        batch.clear();
       }
+    } finally {
+      closeFile();
+    }
+  }
 
+  private void writeBatch(List<Pending> batch) {
+    try {
+      BufferedWriter file = openFile();
+      for (Pending line : batch) {
+        file.write(line.text());
+        file.newLine();
+      }
+      file.flush();
+      written.increment(batch.size());
+      long flushedAt = System.nanoTime();
+      for (Pending line : batch) {
+        latency.record(flushedAt - line.queuedAt(), TimeUnit.NANOSECONDS);
+      }
     } catch (IOException e) {
-      e.printStackTrace();
+      writeFailures.increment(batch.size());
+      log.error("Failed to write {} notifications to {}", batch.size(), properties.getFile(), e);
+      for (Pending line : batch) {
+        line.lost().run();
+      }
+      // reopen on the next batch in case the file was moved or its handle went bad
+      closeFile();
+    }
+  }
+
+  private BufferedWriter openFile() throws IOException {
+    if (out == null) {
+      Path file = properties.getFile();
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    }
+    return out;
+  }
+
+  private void closeFile() {
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException e) {
+        log.warn("Failed to close notification log {}", properties.getFile(), e);
+      }
+      out = null;
     }
   }
 }
@@ -0,0 +1,11 @@
+package com.example.configtracker.service;
+
+/** What {@link NotificationServiceImpl} does when its queue is full. */
+public enum OverflowPolicy {
+  /** Discard the notification being added. */
+  DROP_NEWEST,
+  /** Discard the oldest queued notification to make room. */
+  DROP_OLDEST,
+  /** Wait up to the configured block timeout for room, then discard the new notification. */
+  BLOCK
+}
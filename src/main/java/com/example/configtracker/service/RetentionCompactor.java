@@ -0,0 +1,149 @@
+package com.example.configtracker.service;
+
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RetentionPolicy;
+import com.example.configtracker.repo.RuleTypeRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enforces {@link RetentionProperties} in the background. Each pass walks the rule types and
+ * expires their history in batches of {@code batchSize}, taking a rule type's lock for one batch
+ * at a time, then lets the storage compact the space the removed rows held. Reads never wait for
+ * it and writes to a rule type wait for one batch at most.
+ */
+@Component
+public class RetentionCompactor {
+
+  private static final Logger log = LoggerFactory.getLogger(RetentionCompactor.class);
+
+  private final RetentionProperties properties;
+  private final ConfigChangeRepo configChangeRepo;
+  private final RuleTypeRepo ruleTypeRepo;
+  private final StoreRevision storeRevision;
+  private final InternalThreads threads;
+
+  private final Timer passes;
+  private final Counter removed;
+  private final Counter reclaimed;
+
+  private ScheduledExecutorService scheduler;
+
+  public RetentionCompactor(RetentionProperties properties, ConfigChangeRepo configChangeRepo,
+      RuleTypeRepo ruleTypeRepo, StoreRevision storeRevision, InternalThreads threads,
+      MeterRegistry registry) {
+    this.properties = properties;
+    this.configChangeRepo = configChangeRepo;
+    this.ruleTypeRepo = ruleTypeRepo;
+    this.storeRevision = storeRevision;
+    this.threads = threads;
+    passes = Timer.builder("configtracker.retention.pass")
+        .description("Time to enforce the retention policies once over all rule types")
+        .register(registry);
+    removed = Counter.builder("configtracker.retention.removed")
+        .description("Config changes removed by the retention policies")
+        .register(registry);
+    reclaimed = Counter.builder("configtracker.retention.reclaimed")
+        .description("Row storage released by compacting removed changes")
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  @PostConstruct
+  public void start() {
+    Duration interval = properties.getInterval();
+    if (!properties.isEnabled() || interval == null || interval.isZero() || interval.isNegative()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(threads.factory("retention-compactor"));
+    scheduler.scheduleWithFixedDelay(this::runPass, interval.toMillis(), interval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      try {
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Expires whatever the policies no longer keep at {@code now} and compacts the storage.
+   *
+   * @return how many changes were removed
+   */
+  public long compact(LocalDateTime now) {
+    long started = System.nanoTime();
+    RetentionPolicy defaults = properties.defaultPolicy();
+    Map<Long, RetentionPolicy> overrides = overrides();
+    int batchSize = Math.max(1, properties.getBatchSize());
+    long total = 0;
+    for (Long ruleTypeId : configChangeRepo.findRuleTypeIds()) {
+      RetentionPolicy policy = overrides.getOrDefault(ruleTypeId, defaults);
+      if (policy.isUnlimited()) {
+        continue;
+      }
+      int batch;
+      do {
+        if (Thread.currentThread().isInterrupted()) {
+          break;
+        }
+        batch = configChangeRepo.expire(ruleTypeId, policy, now, batchSize);
+        total += batch;
+      } while (batch == batchSize);
+    }
+    if (total > 0) {
+      storeRevision.increment();
+      removed.increment(total);
+    }
+    long freed = configChangeRepo.compactStorage();
+    reclaimed.increment(freed);
+    passes.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    if (total > 0 || freed > 0) {
+      log.info("Retention removed {} config changes and released {} bytes in {} ms", total, freed,
+          (System.nanoTime() - started) / 1_000_000);
+    }
+    return total;
+  }
+
+  private void runPass() {
+    try {
+      compact(LocalDateTime.now());
+    } catch (RuntimeException e) {
+      log.error("Retention pass failed", e);
+    }
+  }
+
+  private Map<Long, RetentionPolicy> overrides() {
+    Map<Long, RetentionPolicy> overrides = new HashMap<>();
+    properties.getRules().forEach((name, rule) -> {
+      RuleType ruleType = ruleTypeRepo.findByName(name).orElse(null);
+      if (ruleType == null) {
+        log.debug("No rule type named {} for its retention policy", name);
+      } else {
+        overrides.put(ruleType.getId(), properties.policyFor(rule));
+      }
+    });
+    return overrides;
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.configtracker.service;
+
+import com.example.configtracker.repo.RetentionPolicy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "configtracker.retention")
+public class RetentionProperties {
+
+  private boolean enabled = false;
+  private Duration interval = Duration.ofMinutes(1);
+  // changes removed per rule type lock hold
+  private int batchSize = 1000;
+
+  // defaults for every rule type; no age limit and no version limit keep everything, and a zero
+  // age or version count in an override turns that default off for the rule type
+  private Duration maxAge;
+  private int maxVersions;
+  private boolean keepLatest = true;
+
+  /** Overrides by rule type name (case-insensitive); unset fields fall back to the defaults. */
+  private Map<String, Rule> rules = new HashMap<>();
+
+  @Data
+  public static class Rule {
+    private Duration maxAge;
+    private Integer maxVersions;
+    private Boolean keepLatest;
+  }
+
+  public RetentionPolicy defaultPolicy() {
+    return new RetentionPolicy(ageLimit(maxAge), maxVersions, keepLatest);
+  }
+
+  public RetentionPolicy policyFor(Rule rule) {
+    return new RetentionPolicy(
+        ageLimit(rule.getMaxAge() != null ? rule.getMaxAge() : maxAge),
+        rule.getMaxVersions() != null ? rule.getMaxVersions() : maxVersions,
+        rule.getKeepLatest() != null ? rule.getKeepLatest() : keepLatest);
+  }
+
+  private static Duration ageLimit(Duration age) {
+    return age == null || age.isZero() || age.isNegative() ? null : age;
+  }
+}
@@ -2,6 +2,7 @@ package com.example.configtracker.service;
 
 import com.example.configtracker.entities.RuleType;
 import java.util.List;
+import java.util.Optional;
 
 public interface RuleTypeService {
 
@@ -11,7 +12,17 @@ public interface RuleTypeService {
 
   RuleType getRuleTypeById(Long id);
 
+  Optional<RuleType> findRuleTypeById(Long id);
+
+  Optional<RuleType> findRuleTypeByName(String name);
+
   RuleType updateRuleType(Long id, RuleType updatedRuleType);
 
+  /**
+   * Updates the rule type if it is still at {@code expectedVersion}; with {@code null}, retries
+   * against whatever version is current.
+   */
+  RuleType updateRuleType(Long id, RuleType updatedRuleType, Long expectedVersion);
+
   RuleType deleteRuleType(Long id);
 }
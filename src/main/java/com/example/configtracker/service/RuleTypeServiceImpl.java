@@ -5,6 +5,7 @@ import com.example.configtracker.entities.ValueType;
 import com.example.configtracker.exception.APIException;
 import com.example.configtracker.exception.InvalidValueTypeException;
 import com.example.configtracker.exception.ResourceNotFoundException;
+import com.example.configtracker.exception.VersionConflictException;
 import com.example.configtracker.repo.RuleTypeRepo;
 import java.util.List;
 import java.util.Optional;
@@ -17,14 +18,16 @@ public class RuleTypeServiceImpl implements RuleTypeService {
   @Autowired
   private RuleTypeRepo ruleTypeRepo;
 
+  @Autowired
+  private StoreRevision storeRevision;
+
   @Override
   public RuleType createRuleType(RuleType ruleType) {
     validateValueType(ruleType);
-    Optional<RuleType> existing = ruleTypeRepo.findByName(ruleType.getName());
-    if (existing.isPresent()) {
-      throw new APIException("Rule with name '" + ruleType.getName() + "' already exists!");
-    }
-    return ruleTypeRepo.save(ruleType);
+    RuleType saved = ruleTypeRepo.create(ruleType)
+        .orElseThrow(() -> nameTaken(ruleType.getName()));
+    storeRevision.increment();
+    return saved;
   }
 
   @Override
@@ -43,21 +46,41 @@ public class RuleTypeServiceImpl implements RuleTypeService {
   }
 
   @Override
-  public RuleType updateRuleType(Long id, RuleType updatedRuleType) {
-    validateValueType(updatedRuleType);
-    RuleType existing = ruleTypeRepo.findById(id)
-        .orElseThrow(() -> new ResourceNotFoundException("RuleType", "id", id));
+  public Optional<RuleType> findRuleTypeById(Long id) {
+    return ruleTypeRepo.findById(id);
+  }
 
-    if (!existing.getName().equalsIgnoreCase(updatedRuleType.getName())) {
-      ruleTypeRepo.findByName(updatedRuleType.getName()).ifPresent(r -> {
-        throw new APIException("Rule with name '" + updatedRuleType.getName() + "' already exists!");
-      });
-    }
+  @Override
+  public Optional<RuleType> findRuleTypeByName(String name) {
+    return ruleTypeRepo.findByName(name);
+  }
 
-    existing.setName(updatedRuleType.getName());
-    existing.setValueType(updatedRuleType.getValueType());
+  @Override
+  public RuleType updateRuleType(Long id, RuleType updatedRuleType) {
+    return updateRuleType(id, updatedRuleType, null);
+  }
 
-    return ruleTypeRepo.save(existing);
+  @Override
+  public RuleType updateRuleType(Long id, RuleType updatedRuleType, Long expectedVersion) {
+    validateValueType(updatedRuleType);
+    while (true) {
+      RuleType existing = ruleTypeRepo.findById(id)
+          .orElseThrow(() -> new ResourceNotFoundException("RuleType", "id", id));
+      if (expectedVersion != null && existing.getVersion() != expectedVersion) {
+        throw new VersionConflictException("RuleType", id, expectedVersion, existing.getVersion());
+      }
+      RuleType updated = existing.update(updatedRuleType.getName(), updatedRuleType.getValueType());
+      switch (ruleTypeRepo.compareAndSet(existing, updated)) {
+        case SWAPPED -> {
+          storeRevision.increment();
+          return updated;
+        }
+        case NAME_TAKEN -> throw nameTaken(updatedRuleType.getName());
+        case STALE -> {
+          // lost a race with another writer; re-read and check the expected version again
+        }
+      }
+    }
   }
 
   @Override
@@ -65,9 +88,14 @@ public class RuleTypeServiceImpl implements RuleTypeService {
     RuleType existing = ruleTypeRepo.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("RuleType", "id", id));
     ruleTypeRepo.deleteById(id);
+    storeRevision.increment();
     return existing;
   }
 
+  private static APIException nameTaken(String name) {
+    return new APIException("Rule with name '" + name + "' already exists!");
+  }
+
   private void validateValueType(RuleType ruleType) {
     if (!ValueType.isValid(ruleType.getValueType())) {
       throw new InvalidValueTypeException(
@@ -0,0 +1,43 @@
+package com.example.configtracker.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * Revision of everything the API can return, bumped by the services after each committed mutation.
+ * Its ETag form includes a random id of this process, so tags handed out before a restart never
+ * match again.
+ */
+@Component
+public class StoreRevision {
+
+  private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+  private final AtomicLong revision = new AtomicLong();
+
+  /** Id of this process, which tags include so they never match after a restart. */
+  public String bootId() {
+    return bootId;
+  }
+
+  public long current() {
+    return revision.get();
+  }
+
+  public void increment() {
+    revision.incrementAndGet();
+  }
+
+  /**
+   * Strong ETag for the current revision. Read it before building a response so the body is never
+   * older than the tag it is sent with.
+   */
+  public String etag() {
+    return "\"" + bootId + "-" + revision.get() + "\"";
+  }
+
+  /** {@link #etag()} for a response that also depends on something besides the store, e.g. the clock. */
+  public String etag(String variant) {
+    return "\"" + bootId + "-" + revision.get() + "-" + variant + "\"";
+  }
+}
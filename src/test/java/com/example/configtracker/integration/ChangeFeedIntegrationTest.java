@@ -0,0 +1,191 @@
+package com.example.configtracker.integration;
+
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.controller.ConfigChangeController;
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.RuleTypeRepo;
+import com.example.configtracker.service.ChangeFeed;
+import com.example.configtracker.service.ConfigChangeService;
+import com.example.configtracker.service.FeedProperties;
+import com.example.configtracker.service.StoreRevision;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChangeFeedIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RuleTypeRepo ruleTypeRepo;
+
+  @Autowired
+  private ChangeFeed changeFeed;
+
+  @Autowired
+  private ConfigChangeService configChangeService;
+
+  @Autowired
+  private ConfigChangeController configChangeController;
+
+  @Autowired
+  private StoreRevision storeRevision;
+
+  private Long ruleTypeId;
+
+  @BeforeEach
+  void setupRuleType() {
+    ruleTypeRepo.clear();
+    RuleType ruleType = new RuleType(null, "FeedTimeout", "INTEGER");
+    ruleTypeId = ruleTypeRepo.save(ruleType).getId();
+  }
+
+  @Test
+  void testFeedStreamsNewChanges() throws Exception {
+    MvcResult feed = mockMvc.perform(get("/api/config-changes/feed").param("type", "FeedTimeout"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    logChange("71");
+
+    String events = awaitContent(feed.getResponse(), "\"currentValue\":\"71\"");
+    assertTrue(events.contains("event:" + ChangeFeed.CHANGE_EVENT));
+    assertTrue(events.contains("id:" + storeRevision.bootId() + "-" + changeFeed.currentRevision()));
+  }
+
+  @Test
+  void testFeedReplaysEventsAfterLastEventId() throws Exception {
+    long before = changeFeed.currentRevision();
+    logChange("72");
+    logChange("73");
+
+    MvcResult feed = mockMvc.perform(get("/api/config-changes/feed")
+            .header("Last-Event-ID", storeRevision.bootId() + "-" + (before + 1)))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    String events = awaitContent(feed.getResponse(), "\"currentValue\":\"73\"");
+    assertFalse(events.contains("\"currentValue\":\"72\""));
+  }
+
+  @Test
+  void testFeedDeliversConcurrentChangesInRevisionOrder() throws Exception {
+    MvcResult feed = mockMvc.perform(get("/api/config-changes/feed").param("type", "FeedTimeout"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 25; i++) {
+          ConfigChange change = new ConfigChange();
+          change.setRuleTypeId(ruleTypeId);
+          change.setCurrentValue(String.valueOf(1000 + thread * 100 + i));
+          change.setChangedBy("feeder");
+          configChangeService.logChange(change);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    String events = awaitContent(feed.getResponse(), "\"currentValue\":\"1324\"");
+    long last = changeFeed.currentRevision();
+    awaitContent(feed.getResponse(), "-" + last + "\n");
+    List<Long> ids = feed.getResponse().getContentAsString().lines()
+        .filter(line -> line.startsWith("id:"))
+        .map(line -> Long.parseLong(line.substring(line.lastIndexOf('-') + 1)))
+        .toList();
+    assertEquals(100, ids.size(), events);
+    for (int i = 1; i < ids.size(); i++) {
+      assertEquals(ids.get(i - 1) + 1, ids.get(i));
+    }
+  }
+
+  @Test
+  void testFeedSendsResync_whenResumingWithIdFromBeforeRestart() throws Exception {
+    logChange("74");
+    String staleId = storeRevision.bootId() + "-" + changeFeed.currentRevision();
+
+    // a restarted process numbers its events from 1 again, under a new boot id
+    ChangeFeed restarted = new ChangeFeed(new FeedProperties(), InternalThreads.PLATFORM, new StoreRevision());
+    ReflectionTestUtils.setField(configChangeController, "changeFeed", restarted);
+    ReflectionTestUtils.setField(configChangeService, "changeFeed", restarted);
+    try {
+      for (long i = 0; i <= changeFeed.currentRevision(); i++) {
+        logChange(String.valueOf(2000 + i));
+      }
+
+      MvcResult feed = mockMvc.perform(get("/api/config-changes/feed").header("Last-Event-ID", staleId))
+          .andExpect(request().asyncStarted())
+          .andReturn();
+
+      String events = awaitContent(feed.getResponse(), "event:" + ChangeFeed.RESYNC_EVENT);
+      assertFalse(events.contains("\"currentValue\""), events);
+    } finally {
+      ReflectionTestUtils.setField(configChangeController, "changeFeed", changeFeed);
+      ReflectionTestUtils.setField(configChangeService, "changeFeed", changeFeed);
+      restarted.stop();
+    }
+  }
+
+  @Test
+  void testFeedRejectsUnknownType() throws Exception {
+    mockMvc.perform(get("/api/config-changes/feed").param("type", "Unknown"))
+        .andExpect(status().isNotFound());
+  }
+
+  private void logChange(String value) throws Exception {
+    ConfigChange change = new ConfigChange();
+    change.setRuleTypeId(ruleTypeId);
+    change.setCurrentValue(value);
+    change.setChangedBy("feeder");
+    change.setCritical(false);
+    mockMvc.perform(post("/api/config-changes")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(change)))
+        .andExpect(status().isOk());
+  }
+
+  private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+    long deadline = System.currentTimeMillis() + 5_000;
+    String content = response.getContentAsString();
+    while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      content = response.getContentAsString();
+    }
+    assertTrue(content.contains(expected), content);
+    return content;
+  }
+}
@@ -14,7 +14,12 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,9 +39,7 @@ class ConfigChangeControllerIntegrationTest {
   @BeforeEach
   void setupRuleType() {
     ruleTypeRepo.clear();
-    RuleType ruleType = new RuleType();
-    ruleType.setName("MaxConnections");
-    ruleType.setValueType("INTEGER");
+    RuleType ruleType = new RuleType(null, "MaxConnections", "INTEGER");
     ruleTypeRepo.save(ruleType);
   }
 
@@ -83,6 +86,137 @@ class ConfigChangeControllerIntegrationTest {
         .andExpect(jsonPath("$[*].ruleName").value(hasItem("MaxConnections")));
   }
 
+  @Test
+  void testCreateConfigChangeBatch() throws Exception {
+    Long ruleTypeId = ruleTypeRepo.findAll().get(0).getId();
+    List<ConfigChange> changes = new ArrayList<>();
+    for (String value : List.of("51", "51", "fifty")) {
+      ConfigChange change = new ConfigChange();
+      change.setRuleTypeId(ruleTypeId);
+      change.setCurrentValue(value);
+      change.setChangedBy("deployer");
+      changes.add(change);
+    }
+
+    mockMvc.perform(post("/api/config-changes/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(changes)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.accepted").value(1))
+        .andExpect(jsonPath("$.duplicates").value(1))
+        .andExpect(jsonPath("$.invalid").value(1))
+        .andExpect(jsonPath("$.results[0].status").value("ACCEPTED"))
+        .andExpect(jsonPath("$.results[1].status").value("DUPLICATE"))
+        .andExpect(jsonPath("$.results[2].status").value("INVALID"));
+  }
+
+  @Test
+  void testCurrentValue() throws Exception {
+    Long ruleTypeId = ruleTypeRepo.findAll().get(0).getId();
+    for (String value : List.of("61", "62")) {
+      ConfigChange change = new ConfigChange();
+      change.setRuleTypeId(ruleTypeId);
+      change.setCurrentValue(value);
+      change.setChangedBy("operator");
+      change.setCritical(false);
+      mockMvc.perform(post("/api/config-changes")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(change)));
+    }
+
+    mockMvc.perform(get("/api/config-changes/current/" + ruleTypeId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.currentValue").value("62"));
+    mockMvc.perform(get("/api/config-changes/current/name/maxconnections"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.currentValue").value("62"));
+    mockMvc.perform(get("/api/config-changes/current"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.ruleTypeId == " + ruleTypeId + ")].currentValue").value(hasItem("62")));
+  }
+
+  @Test
+  void testPageConfigChanges() throws Exception {
+    for (String value : List.of("31", "32", "33")) {
+      ConfigChange change = new ConfigChange();
+      change.setRuleTypeId(ruleTypeRepo.findAll().get(0).getId());
+      change.setCurrentValue(value);
+      change.setChangedBy("pager");
+      change.setCritical(false);
+      mockMvc.perform(post("/api/config-changes")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(change)));
+    }
+
+    List<Object> values = new ArrayList<>();
+    String cursor = null;
+    do {
+      MvcResult result = mockMvc.perform(get("/api/config-changes/page")
+              .param("type", "MaxConnections")
+              .param("limit", "2")
+              .param("cursor", cursor))
+          .andExpect(status().isOk())
+          .andReturn();
+      String body = result.getResponse().getContentAsString();
+      values.addAll(JsonPath.read(body, "$.items[?(@.changedBy == 'pager')].currentValue"));
+      cursor = JsonPath.read(body, "$.nextCursor");
+    } while (cursor != null);
+
+    assertEquals(List.of("31", "32", "33"), values);
+
+    mockMvc.perform(get("/api/config-changes/page").param("type", "Unknown"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items").isEmpty());
+  }
+
+  @Test
+  void testExportConfigChanges() throws Exception {
+    for (String value : List.of("41", "42")) {
+      ConfigChange change = new ConfigChange();
+      change.setRuleTypeId(ruleTypeRepo.findAll().get(0).getId());
+      change.setCurrentValue(value);
+      change.setChangedBy("exporter");
+      change.setCritical(false);
+      mockMvc.perform(post("/api/config-changes")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(change)));
+    }
+
+    MvcResult started = mockMvc.perform(get("/api/config-changes/export").param("type", "MaxConnections"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn();
+
+    List<String> exported = new ArrayList<>();
+    for (String line : result.getResponse().getContentAsString().split("\n")) {
+      if (JsonPath.read(line, "$.changedBy").equals("exporter")) {
+        exported.add(JsonPath.read(line, "$.currentValue"));
+      }
+    }
+    assertEquals(List.of("41", "42"), exported);
+  }
+
+  @Test
+  void testMetricsPublished() throws Exception {
+    ConfigChange change = new ConfigChange();
+    change.setRuleTypeId(ruleTypeRepo.findAll().get(0).getId());
+    change.setCurrentValue("81");
+    change.setChangedBy("metrics");
+    change.setCritical(false);
+    mockMvc.perform(post("/api/config-changes")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(change)));
+
+    mockMvc.perform(get("/actuator/metrics/configtracker.changes.log.stage").param("tag", "stage:save"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value").value(hasItem(greaterThan(0.0))));
+    mockMvc.perform(get("/actuator/metrics/configtracker.repository.size").param("tag", "repository:config-changes"))
+        .andExpect(status().isOk());
+  }
+
   @Test
   void testDeleteConfigChange() throws Exception {
     ConfigChange change = new ConfigChange();
@@ -105,4 +239,49 @@ class ConfigChangeControllerIntegrationTest {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.changedBy").value("tester"));
   }
+
+  @Test
+  void testChangeStats() throws Exception {
+    Long ruleTypeId = ruleTypeRepo.findAll().get(0).getId();
+    // other tests leave changes behind under the same id, so compare before and after
+    MvcResult before = mockMvc.perform(get("/api/config-changes/stats/" + ruleTypeId))
+        .andExpect(status().isOk())
+        .andReturn();
+    int changesBefore = JsonPath.read(before.getResponse().getContentAsString(), "$.changes");
+    int windowBefore = JsonPath.read(before.getResponse().getContentAsString(), "$.changesInWindow");
+
+    for (String value : List.of("71", "72")) {
+      ConfigChange change = new ConfigChange();
+      change.setRuleTypeId(ruleTypeId);
+      change.setCurrentValue(value);
+      change.setChangedBy("stats operator");
+      change.setCritical(true);
+      mockMvc.perform(post("/api/config-changes")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(change)))
+          .andExpect(status().isOk());
+    }
+
+    MvcResult after = mockMvc.perform(get("/api/config-changes/stats/" + ruleTypeId).param("hours", "2"))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andExpect(jsonPath("$.ruleName").value("MaxConnections"))
+        .andExpect(jsonPath("$.changes").value(changesBefore + 2))
+        .andExpect(jsonPath("$.lastChangedAt").exists())
+        .andExpect(jsonPath("$.hourly.length()").value(2))
+        .andReturn();
+    int windowAfter = JsonPath.read(after.getResponse().getContentAsString(), "$.changesInWindow");
+    assertEquals(windowBefore + 2, windowAfter);
+
+    mockMvc.perform(get("/api/config-changes/stats/" + ruleTypeId).param("hours", "2")
+            .header("If-None-Match", after.getResponse().getHeader("ETag")))
+        .andExpect(status().isNotModified());
+    mockMvc.perform(get("/api/config-changes/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.ruleTypeId == " + ruleTypeId + ")].changes").value(hasItem(changesBefore + 2)));
+    mockMvc.perform(get("/api/config-changes/stats").param("hours", "0"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/config-changes/stats/999999"))
+        .andExpect(status().isNotFound());
+  }
 }
@@ -29,9 +29,7 @@ class RuleTypeControllerIntegrationTest {
 
   @BeforeEach
   void setUp() {
-    ruleType = new RuleType();
-    ruleType.setName("MaxConnections");
-    ruleType.setValueType("INTEGER");
+    ruleType = new RuleType(null, "MaxConnections", "INTEGER");
   }
 
   @Test
@@ -67,9 +65,7 @@ class RuleTypeControllerIntegrationTest {
         .contentType(MediaType.APPLICATION_JSON)
         .content(objectMapper.writeValueAsString(ruleType)));
 
-    RuleType updated = new RuleType();
-    updated.setName("ConnectionLimit");
-    updated.setValueType("INTEGER");
+    RuleType updated = new RuleType(null, "ConnectionLimit", "INTEGER");
 
     mockMvc.perform(put("/api/rule-types/1")
             .contentType(MediaType.APPLICATION_JSON)
@@ -78,6 +74,84 @@ class RuleTypeControllerIntegrationTest {
         .andExpect(jsonPath("$.name").value("ConnectionLimit"));
   }
 
+  @Test
+  void testUpdateRuleTypeWithIfMatch() throws Exception {
+    MvcResult created = mockMvc.perform(post("/api/rule-types")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"PoolTimeout\",\"valueType\":\"INTEGER\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.version").value(1))
+        .andReturn();
+    long id = ((Number) JsonPath.read(created.getResponse().getContentAsString(), "$.id")).longValue();
+
+    String v1 = mockMvc.perform(get("/api/rule-types/" + id))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", org.hamcrest.Matchers.matchesPattern("\"[0-9a-z]+-1\"")))
+        .andReturn()
+        .getResponse()
+        .getHeader("ETag");
+
+    mockMvc.perform(put("/api/rule-types/" + id)
+            .header("If-Match", "\"1\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"PoolTimeoutMs\",\"valueType\":\"INTEGER\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", v1.replace("-1\"", "-2\"")))
+        .andExpect(jsonPath("$.name").value("PoolTimeoutMs"))
+        .andExpect(jsonPath("$.version").value(2));
+
+    mockMvc.perform(put("/api/rule-types/" + id)
+            .header("If-Match", "\"1\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"PoolTimeoutSeconds\",\"valueType\":\"INTEGER\"}"))
+        .andExpect(status().isPreconditionFailed());
+
+    mockMvc.perform(put("/api/rule-types/" + id)
+            .header("If-Match", v1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"PoolTimeoutSeconds\",\"valueType\":\"INTEGER\"}"))
+        .andExpect(status().isPreconditionFailed());
+    // a tag issued by an earlier process never matches, even for the current version
+    mockMvc.perform(put("/api/rule-types/" + id)
+            .header("If-Match", "\"oldboot-2\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"PoolTimeoutSeconds\",\"valueType\":\"INTEGER\"}"))
+        .andExpect(status().isPreconditionFailed());
+
+    mockMvc.perform(get("/api/rule-types/" + id).header("If-None-Match", v1.replace("-1\"", "-2\"")))
+        .andExpect(status().isNotModified());
+    mockMvc.perform(get("/api/rule-types/" + id).header("If-None-Match", "\"2\""))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/api/rule-types/" + id))
+        .andExpect(jsonPath("$.name").value("PoolTimeoutMs"));
+  }
+
+  @Test
+  void testConditionalGetRuleTypes() throws Exception {
+    mockMvc.perform(post("/api/rule-types")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\":\"CacheSize\",\"valueType\":\"INTEGER\"}"));
+
+    String etag = mockMvc.perform(get("/api/rule-types"))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andReturn()
+        .getResponse()
+        .getHeader("ETag");
+
+    mockMvc.perform(get("/api/rule-types").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    mockMvc.perform(post("/api/rule-types")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\":\"CacheTtl\",\"valueType\":\"INTEGER\"}"));
+
+    mockMvc.perform(get("/api/rule-types").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", org.hamcrest.Matchers.not(etag)));
+  }
+
   @Test
   void testDeleteRuleType() throws Exception {
 
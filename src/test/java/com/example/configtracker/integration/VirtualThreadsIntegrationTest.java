@@ -0,0 +1,72 @@
+package com.example.configtracker.integration;
+
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.RuleTypeRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.threads.virtual.enabled=true")
+@AutoConfigureMockMvc
+class VirtualThreadsIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RuleTypeRepo ruleTypeRepo;
+
+  @Autowired
+  private InternalThreads internalThreads;
+
+  private Long ruleTypeId;
+
+  @BeforeEach
+  void setupRuleType() {
+    ruleTypeRepo.clear();
+    RuleType ruleType = new RuleType(null, "VirtualPoolSize", "INTEGER");
+    ruleTypeId = ruleTypeRepo.save(ruleType).getId();
+  }
+
+  @Test
+  void testInternalThreadsAreVirtual() {
+    assertTrue(internalThreads.isVirtual());
+    assertTrue(internalThreads.factory("test").newThread(() -> { }).isVirtual());
+  }
+
+  @Test
+  void testLogAndExportOnVirtualThreads() throws Exception {
+    ConfigChange change = new ConfigChange();
+    change.setRuleTypeId(ruleTypeId);
+    change.setCurrentValue("512");
+    change.setChangedBy("virtual");
+    change.setCritical(true);
+    mockMvc.perform(post("/api/config-changes")
+            .header("X-Correlation-ID", "virtual-1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(change)))
+        .andExpect(status().isOk());
+
+    MvcResult started = mockMvc.perform(get("/api/config-changes/export").param("type", "VirtualPoolSize"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().string(org.hamcrest.Matchers.containsString("\"currentValue\":\"512\"")));
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.StorageMode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the repository contract against the columnar storage mode. */
+class ColumnarConfigChangeRepoTest extends ConfigChangeRepoTest {
+
+  @Override
+  protected ConfigChangeRepo createRepo() {
+    return new ConfigChangeRepo(StorageMode.COLUMNAR);
+  }
+
+  @Test
+  void findById_shouldMaterializeStoredRow() {
+    LocalDateTime changedAt = LocalDateTime.of(2025, 11, 10, 12, 0, 0, 123_456_789);
+    ConfigChange saved = repo.save(change(7L, "true", true, changedAt));
+
+    ConfigChange found = repo.findById(saved.getId()).orElseThrow();
+
+    assertNotSame(saved, found);
+    assertEquals(saved, found);
+    assertEquals(changedAt, found.getChangedAt());
+  }
+
+  @Test
+  void save_shouldStayConsistentAcrossManyInsertsAndDeletes() {
+    Random random = new Random(42);
+    Map<Long, ConfigChange> expected = new HashMap<>();
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 20_000; i++) {
+      if (!expected.isEmpty() && random.nextInt(3) == 0) {
+        Long id = expected.keySet().iterator().next();
+        repo.deleteById(id);
+        expected.remove(id);
+      } else {
+        ConfigChange saved = repo.save(change(random.nextInt(50), String.valueOf(i), false, base.plusSeconds(i)));
+        expected.put(saved.getId(), saved);
+      }
+    }
+
+    assertEquals(expected.size(), repo.count());
+    for (ConfigChange change : expected.values()) {
+      assertEquals(change, repo.findById(change.getId()).orElseThrow());
+    }
+    assertEquals(expected.size(), repo.findByChangedAtBetween(null, null).size());
+  }
+
+  @Test
+  void compactStorage_shouldDropDeadRowsAndKeepLiveOnes() {
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    List<ConfigChange> kept = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      ConfigChange saved = repo.save(change(i % 10, String.valueOf(i), i % 3 == 0, base.plusSeconds(i)));
+      if (i % 10 == 0) {
+        kept.add(saved);
+      } else {
+        repo.deleteById(saved.getId());
+      }
+    }
+
+    assertTrue(repo.compactStorage() > 0);
+    assertEquals(0, repo.compactStorage());
+
+    assertEquals(kept.size(), repo.count());
+    assertEquals(kept, repo.findByChangedAtBetween(null, null));
+    for (ConfigChange change : kept) {
+      assertEquals(change, repo.findById(change.getId()).orElseThrow());
+    }
+    ConfigChange added = repo.save(change(1L, "after", false, base.plusDays(1)));
+    assertEquals(added, repo.findById(added.getId()).orElseThrow());
+    assertEquals(kept.size() + 1, repo.findAll().size());
+  }
+}
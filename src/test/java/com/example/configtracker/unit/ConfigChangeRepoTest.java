@@ -0,0 +1,508 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.exception.StoreFailedException;
+import com.example.configtracker.repo.ChangeKey;
+import com.example.configtracker.repo.ChangeStats;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RepositoryJournal;
+import com.example.configtracker.repo.RepositoryMetrics;
+import com.example.configtracker.repo.RuleTypeRepo;
+import com.example.configtracker.repo.RetentionPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigChangeRepoTest {
+
+  protected ConfigChangeRepo repo;
+
+  @BeforeEach
+  void setUp() {
+    repo = createRepo();
+  }
+
+  protected ConfigChangeRepo createRepo() {
+    return new ConfigChangeRepo();
+  }
+
+  protected ConfigChange change(long ruleTypeId, String value, boolean critical, LocalDateTime changedAt) {
+    ConfigChange change = new ConfigChange();
+    change.setRuleTypeId(ruleTypeId);
+    change.setCurrentValue(value);
+    change.setChangedBy("admin");
+    change.setCritical(critical);
+    change.setChangedAt(changedAt);
+    return change;
+  }
+
+  @Test
+  void save_shouldAssignUniqueIds_whenCalledConcurrently() throws Exception {
+    int threads = 8;
+    int perThread = 2_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      long ruleTypeId = t;
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int i = 0; i < perThread; i++) {
+          repo.save(change(ruleTypeId, String.valueOf(i), false, LocalDateTime.now()));
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    List<ConfigChange> all = repo.findAll();
+    assertEquals(threads * perThread, all.size());
+    assertEquals(all.size(), all.stream().map(ConfigChange::getId).distinct().count());
+  }
+
+  @Test
+  void generateId_shouldStayAheadOfExplicitIds() {
+    ConfigChange explicit = change(1L, "10", false, LocalDateTime.now());
+    explicit.setId(50L);
+    repo.save(explicit);
+
+    assertEquals(51L, repo.generateId());
+  }
+
+  @Test
+  void existsDuplicate_shouldTrackSaveAndDelete() {
+    ConfigChange saved = repo.save(change(1L, "10", true, LocalDateTime.now()));
+
+    assertTrue(repo.existsDuplicate(1L, "10", true));
+    assertFalse(repo.existsDuplicate(1L, "10", false));
+    assertFalse(repo.existsDuplicate(2L, "10", true));
+
+    repo.deleteById(saved.getId());
+
+    assertFalse(repo.existsDuplicate(1L, "10", true));
+  }
+
+  @Test
+  void saveIfUnique_shouldRejectIdenticalChange() {
+    assertTrue(repo.saveIfUnique(change(1L, "10", true, LocalDateTime.now())));
+    assertFalse(repo.saveIfUnique(change(1L, "10", true, LocalDateTime.now())));
+    assertTrue(repo.saveIfUnique(change(1L, "10", false, LocalDateTime.now())));
+
+    assertEquals(2, repo.findAll().size());
+  }
+
+  private double dictionarySize(String index) {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    new RepositoryMetrics(repo, new RuleTypeRepo()).bindTo(registry);
+    return registry.get("configtracker.repository.index.size").tag("index", index).gauge().value();
+  }
+
+  @Test
+  void delete_shouldReleaseDictionaryEntries_andReuseTheirCodes() {
+    List<ConfigChange> saved = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      ConfigChange change = change(1L, "value-" + i, true, LocalDateTime.now());
+      change.setChangedBy(i % 2 == 0 ? "alice" : "bob");
+      saved.add(repo.save(change));
+    }
+    assertEquals(100, dictionarySize("values"));
+    assertEquals(2, dictionarySize("authors"));
+    // a re-save with a new value gives up the old one
+    ConfigChange updated = change(1L, "updated", true, LocalDateTime.now());
+    updated.setId(saved.get(0).getId());
+    repo.save(updated);
+    assertEquals(100, dictionarySize("values"));
+    saved.set(0, updated);
+
+    saved.forEach(change -> repo.deleteById(change.getId()));
+    assertEquals(0, dictionarySize("values"));
+    assertEquals(0, dictionarySize("authors"));
+
+    // released codes now belong to other values; old values must not match them
+    ConfigChange reused = repo.save(change(2L, "other", true, LocalDateTime.now()));
+    assertEquals("other", repo.findById(reused.getId()).orElseThrow().getCurrentValue());
+    assertTrue(repo.existsDuplicate(2L, "other", true));
+    assertFalse(repo.existsDuplicate(2L, "value-99", true));
+    assertFalse(repo.existsDuplicate(1L, "value-99", true));
+    assertTrue(repo.saveIfUnique(change(1L, "value-99", true, LocalDateTime.now())));
+    assertEquals(2, dictionarySize("values"));
+  }
+
+  @Test
+  void dictionary_shouldStayConsistent_whenValuesComeAndGoConcurrently() throws Exception {
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      long ruleTypeId = t;
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int i = 0; i < 2_000; i++) {
+          // every rule type cycles through the same few values, so codes are shared across stripes
+          String value = String.valueOf(i % 5);
+          ConfigChange saved = repo.save(change(ruleTypeId, value, false, LocalDateTime.now()));
+          assertEquals(value, repo.findById(saved.getId()).orElseThrow().getCurrentValue());
+          repo.deleteById(saved.getId());
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertEquals(0, repo.count());
+    assertEquals(0, dictionarySize("values"));
+    assertEquals(0, dictionarySize("authors"));
+  }
+
+  @Test
+  void commitCallbacks_shouldSeeOnlyStoredAndRemovedChanges() {
+    List<ConfigChange> committed = new ArrayList<>();
+    ConfigChange stored = change(1L, "10", true, LocalDateTime.now());
+    ConfigChange duplicate = change(1L, "10", true, LocalDateTime.now());
+    assertTrue(repo.saveIfUnique(stored, committed::add));
+    assertFalse(repo.saveIfUnique(duplicate, committed::add));
+    assertArrayEquals(new boolean[] {true, false}, repo.saveAllIfUnique(
+        List.of(change(1L, "20", true, LocalDateTime.now()), change(1L, "20", true, LocalDateTime.now())),
+        committed::add));
+    assertEquals(List.of("10", "20"), committed.stream().map(ConfigChange::getCurrentValue).toList());
+
+    List<ConfigChange> deleted = new ArrayList<>();
+    repo.deleteById(stored.getId(), deleted::add);
+    repo.deleteById(stored.getId(), deleted::add);
+    assertEquals(List.of(stored), deleted);
+  }
+
+  @Test
+  void saveAllIfUnique_shouldRejectDuplicatesWithinAndAcrossBatches() {
+    LocalDateTime now = LocalDateTime.now();
+    repo.save(change(1L, "stored", false, now));
+    long first = repo.generateIds(4);
+
+    List<ConfigChange> batch = new ArrayList<>();
+    for (String value : List.of("new", "stored", "new", "other")) {
+      ConfigChange change = change(1L, value, false, now);
+      change.setId(first + batch.size());
+      batch.add(change);
+    }
+
+    assertArrayEquals(new boolean[] {true, false, false, true}, repo.saveAllIfUnique(batch));
+    assertEquals(3, repo.count());
+    assertEquals(first + 4, repo.generateId());
+  }
+
+  @Test
+  void findLatestByRuleTypeId_shouldFollowSavesAndDeletes() {
+    LocalDateTime base = LocalDateTime.of(2025, 11, 10, 12, 0);
+    ConfigChange middle = repo.save(change(1L, "2", false, base.plusHours(2)));
+    ConfigChange newest = repo.save(change(1L, "3", false, base.plusHours(3)));
+    repo.save(change(1L, "1", false, base.plusHours(1)));
+    ConfigChange other = repo.save(change(2L, "x", false, base));
+
+    assertEquals(Optional.of(newest), repo.findLatestByRuleTypeId(1L));
+    assertEquals(List.of(newest, other), List.copyOf(repo.findAllLatest().values()));
+
+    repo.deleteById(newest.getId());
+    assertEquals(Optional.of(middle), repo.findLatestByRuleTypeId(1L));
+
+    repo.deleteById(other.getId());
+    assertEquals(Optional.empty(), repo.findLatestByRuleTypeId(2L));
+    assertEquals(List.of(1L), List.copyOf(repo.findAllLatest().keySet()));
+  }
+
+  @Test
+  void findAsOf_shouldReturnChangeInEffectAtTimestamp() {
+    LocalDateTime base = LocalDateTime.of(2025, 11, 10, 12, 0);
+    ConfigChange first = repo.save(change(1L, "1", false, base.plusHours(1)));
+    ConfigChange second = repo.save(change(1L, "2", false, base.plusHours(2)));
+    ConfigChange other = repo.save(change(2L, "x", false, base.plusHours(3)));
+
+    assertEquals(Optional.empty(), repo.findAsOf(1L, base));
+    assertEquals(Optional.of(first), repo.findAsOf(1L, base.plusHours(1)));
+    assertEquals(Optional.of(first), repo.findAsOf(1L, base.plusMinutes(119)));
+    assertEquals(Optional.of(second), repo.findAsOf(1L, base.plusDays(1)));
+    assertEquals(Map.of(1L, second), repo.findAllAsOf(base.plusHours(2)));
+    assertEquals(List.of(second, other), List.copyOf(repo.findAllAsOf(base.plusHours(3)).values()));
+
+    repo.deleteById(second.getId());
+    assertEquals(Optional.of(first), repo.findAsOf(1L, base.plusDays(1)));
+  }
+
+  @Test
+  void findByChangedAtBetween_shouldReturnExclusiveRangeInTimeOrder() {
+    LocalDateTime base = LocalDateTime.of(2025, 11, 10, 12, 0);
+    ConfigChange third = repo.save(change(1L, "3", false, base.plusHours(3)));
+    ConfigChange first = repo.save(change(2L, "1", false, base.plusHours(1)));
+    ConfigChange second = repo.save(change(1L, "2", false, base.plusHours(2)));
+    repo.save(change(2L, "0", false, base));
+
+    assertEquals(List.of(first, second, third), repo.findByChangedAtBetween(base, null));
+    assertEquals(List.of(first, second), repo.findByChangedAtBetween(base, base.plusHours(3)));
+    assertEquals(List.of(second, third),
+        repo.findByRuleTypeIdAndChangedAtBetween(1L, null, null));
+    assertEquals(List.of(), repo.findByRuleTypeIdAndChangedAtBetween(3L, null, null));
+
+    repo.deleteById(second.getId());
+
+    assertEquals(List.of(third), repo.findByRuleTypeIdAndChangedAtBetween(1L, base, null));
+  }
+
+  @Test
+  void findHistoriesByChangedAtBetween_shouldGroupByRuleTypeInTimeOrder() {
+    LocalDateTime base = LocalDateTime.of(2025, 11, 10, 12, 0);
+    ConfigChange late = repo.save(change(2L, "b", false, base.plusHours(2)));
+    ConfigChange early = repo.save(change(2L, "a", false, base.plusHours(1)));
+    ConfigChange other = repo.save(change(1L, "c", false, base.plusHours(3)));
+    repo.save(change(3L, "d", false, base));
+
+    Map<Long, List<ConfigChange>> histories = repo.findHistoriesByChangedAtBetween(base, null);
+
+    assertEquals(List.of(1L, 2L), List.copyOf(histories.keySet()));
+    assertEquals(List.of(other), histories.get(1L));
+    assertEquals(List.of(early, late), histories.get(2L));
+  }
+
+  @Test
+  void findPage_shouldSeekPastCursorWithinRange() {
+    LocalDateTime base = LocalDateTime.of(2025, 11, 10, 12, 0);
+    List<ConfigChange> changes = new ArrayList<>();
+    for (int i = 1; i <= 5; i++) {
+      changes.add(repo.save(change(i % 2 == 0 ? 2L : 1L, "v" + i, false, base.plusHours(i))));
+    }
+
+    List<ConfigChange> first = repo.findPage(null, null, null, null, 2);
+    List<ConfigChange> second = repo.findPage(null, null, null, ChangeKey.of(first.get(1)), 2);
+
+    assertEquals(changes.subList(0, 2), first);
+    assertEquals(changes.subList(2, 4), second);
+    assertEquals(List.of(changes.get(4)), repo.findPage(null, null, null, ChangeKey.of(second.get(1)), 2));
+    assertEquals(List.of(changes.get(0), changes.get(2), changes.get(4)),
+        repo.findPage(1L, null, null, null, 10));
+    assertEquals(List.of(changes.get(4)),
+        repo.findPage(1L, null, null, ChangeKey.of(changes.get(2)), 10));
+    // a cursor before the range start falls back to the range bound
+    assertEquals(List.of(changes.get(3)),
+        repo.findPage(null, base.plusHours(3), base.plusHours(5), ChangeKey.of(changes.get(0)), 10));
+    assertEquals(List.of(), repo.findPage(null, base.plusHours(4), base.plusHours(2), null, 10));
+    assertEquals(List.of(), repo.findPage(3L, null, null, null, 10));
+  }
+
+  @Test
+  void save_shouldShareOneInstancePerDistinctString() {
+    ConfigChange first = repo.save(change(1L, new String("true"), false, LocalDateTime.now()));
+    ConfigChange second = repo.save(change(2L, new String("true"), false, LocalDateTime.now()));
+
+    assertSame(repo.findById(first.getId()).orElseThrow().getCurrentValue(),
+        repo.findById(second.getId()).orElseThrow().getCurrentValue());
+    assertSame(repo.findById(first.getId()).orElseThrow().getChangedBy(),
+        repo.findById(second.getId()).orElseThrow().getChangedBy());
+    assertTrue(repo.existsDuplicate(2L, new String("true"), false));
+    assertFalse(repo.existsDuplicate(2L, "never stored", false));
+  }
+
+  @Test
+  void expire_shouldRemoveChangesBeyondMaxVersionsOldestFirst() {
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    List<ConfigChange> changes = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      changes.add(repo.save(change(1L, "v" + i, false, base.plusHours(i))));
+    }
+    repo.save(change(2L, "other", false, base));
+    RetentionPolicy policy = new RetentionPolicy(null, 2, true);
+
+    assertEquals(2, repo.expire(1L, policy, base.plusDays(1), 2));
+    assertEquals(1, repo.expire(1L, policy, base.plusDays(1), 2));
+    assertEquals(0, repo.expire(1L, policy, base.plusDays(1), 2));
+
+    assertEquals(changes.subList(3, 5), repo.findByRuleTypeIdAndChangedAtBetween(1L, null, null));
+    assertEquals(3, repo.count());
+    assertTrue(repo.findById(changes.get(0).getId()).isEmpty());
+    assertFalse(repo.existsDuplicate(1L, "v0", false));
+    assertTrue(repo.existsDuplicate(1L, "v4", false));
+    assertEquals(changes.get(4), repo.findLatestByRuleTypeId(1L).orElseThrow());
+    assertTrue(repo.findAsOf(1L, base.plusHours(2)).isEmpty());
+  }
+
+  @Test
+  void expire_shouldRemoveChangesOlderThanMaxAgeButKeepLatest() {
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    ConfigChange old = repo.save(change(1L, "old", false, base));
+    ConfigChange newest = repo.save(change(1L, "newest", false, base.plusHours(1)));
+    ConfigChange recent = repo.save(change(2L, "recent", false, base.plusDays(10)));
+    LocalDateTime now = base.plusDays(10).plusHours(1);
+
+    assertEquals(1, repo.expire(1L, new RetentionPolicy(Duration.ofDays(1), 0, true), now, 100));
+    assertEquals(0, repo.expire(2L, new RetentionPolicy(Duration.ofDays(1), 0, true), now, 100));
+
+    assertTrue(repo.findById(old.getId()).isEmpty());
+    assertEquals(newest, repo.findLatestByRuleTypeId(1L).orElseThrow());
+    assertEquals(List.of(newest, recent), repo.findByChangedAtBetween(null, null));
+
+    assertEquals(1, repo.expire(1L, new RetentionPolicy(Duration.ofDays(1), 0, false), now, 100));
+    assertTrue(repo.findLatestByRuleTypeId(1L).isEmpty());
+    assertEquals(Set.of(2L), repo.findRuleTypeIds());
+    assertEquals(Map.of(2L, recent), repo.findAllLatest());
+  }
+
+  @Test
+  void expire_shouldKeepEverythingUnderUnlimitedPolicy() {
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    repo.save(change(1L, "a", false, base));
+    repo.save(change(1L, "b", false, base.plusHours(1)));
+
+    assertEquals(0, repo.expire(1L, new RetentionPolicy(null, 0, false), base.plusYears(1), 100));
+    assertEquals(0, repo.expire(1L, new RetentionPolicy(null, 5, false), base.plusYears(1), 100));
+    assertEquals(0, repo.expire(3L, new RetentionPolicy(Duration.ofDays(1), 1, false), base.plusYears(1), 100));
+    assertEquals(2, repo.count());
+  }
+
+  @Test
+  void expire_shouldStayConsistentWithConcurrentWriters() throws Exception {
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    int writes = 5_000;
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> writer = executor.submit(() -> {
+      for (int i = 0; i < writes; i++) {
+        repo.save(change(i % 4, String.valueOf(i), false, base.plusSeconds(i)));
+      }
+    });
+    RetentionPolicy policy = new RetentionPolicy(null, 10, true);
+    while (!writer.isDone()) {
+      for (long ruleTypeId = 0; ruleTypeId < 4; ruleTypeId++) {
+        repo.expire(ruleTypeId, policy, base, 50);
+      }
+      repo.compactStorage();
+    }
+    writer.get();
+    executor.shutdown();
+    for (long ruleTypeId = 0; ruleTypeId < 4; ruleTypeId++) {
+      repo.expire(ruleTypeId, policy, base, Integer.MAX_VALUE);
+    }
+    repo.compactStorage();
+
+    assertEquals(40, repo.count());
+    assertEquals(40, repo.findByChangedAtBetween(null, null).size());
+    for (long ruleTypeId = 0; ruleTypeId < 4; ruleTypeId++) {
+      List<ConfigChange> history = repo.findByRuleTypeIdAndChangedAtBetween(ruleTypeId, null, null);
+      assertEquals(10, history.size());
+      assertEquals(String.valueOf(writes - 4 + ruleTypeId), history.get(9).getCurrentValue());
+      assertEquals(history.get(9), repo.findLatestByRuleTypeId(ruleTypeId).orElseThrow());
+    }
+  }
+
+  @Test
+  void findStats_shouldFollowSavesAndDeletes() {
+    LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 30);
+    ConfigChange first = repo.save(change(1L, "a", true, now.minusHours(2)));
+    ConfigChange second = repo.save(change(1L, "b", false, now.minusMinutes(10)));
+    ConfigChange third = change(1L, "c", true, now.minusMinutes(5));
+    third.setChangedBy("operator");
+    repo.save(third);
+    repo.save(change(2L, "x", false, now.minusDays(30)));
+
+    ChangeStats stats = repo.findStats(1L, now, 3).orElseThrow();
+    assertEquals(3, stats.changes());
+    assertEquals(2, stats.criticalChanges());
+    assertEquals(2, stats.distinctAuthors());
+    assertEquals(third.getChangedAt(), stats.lastChangedAt());
+    assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), stats.windowStart());
+    assertArrayEquals(new int[] {1, 0, 2}, stats.hourly());
+
+    repo.deleteById(third.getId());
+    repo.deleteById(first.getId());
+    stats = repo.findStats(1L, now, 3).orElseThrow();
+    assertEquals(1, stats.changes());
+    assertEquals(0, stats.criticalChanges());
+    assertEquals(1, stats.distinctAuthors());
+    assertEquals(second.getChangedAt(), stats.lastChangedAt());
+    assertArrayEquals(new int[] {0, 0, 1}, stats.hourly());
+
+    // a change older than the window counts in the totals but in no hour
+    assertEquals(0, repo.findStats(2L, now, ChangeStats.MAX_HOURS).orElseThrow().changesInWindow());
+    assertEquals(Set.of(1L, 2L), repo.findAllStats(now, 1).keySet());
+
+    repo.deleteById(second.getId());
+    assertTrue(repo.findStats(1L, now, 3).isEmpty());
+  }
+
+  @Test
+  void findStats_shouldMoveChangeBetweenRuleTypesOnResave() {
+    LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+    ConfigChange saved = repo.save(change(1L, "a", true, now));
+    ConfigChange moved = change(2L, "a", true, now);
+    moved.setId(saved.getId());
+    repo.save(moved);
+
+    assertTrue(repo.findStats(1L, now, 1).isEmpty());
+    assertEquals(1, repo.findStats(2L, now, 1).orElseThrow().changes());
+  }
+
+  @Test
+  void saveIfUnique_shouldStopServing_whenCommitFails() {
+    ConfigChange stored = change(1L, "10", true, LocalDateTime.now());
+    assertTrue(repo.saveIfUnique(stored));
+    IllegalStateException cause = new IllegalStateException("disk full");
+    repo.setJournal(new RepositoryJournal() {
+      private volatile Throwable failure;
+
+      private CompletableFuture<Void> fail() {
+        failure = cause;
+        return CompletableFuture.failedFuture(cause);
+      }
+
+      @Override
+      public CompletableFuture<Void> changeSaved(ConfigChange change) {
+        return fail();
+      }
+
+      @Override
+      public CompletableFuture<Void> changeDeleted(Long id) {
+        return fail();
+      }
+
+      @Override
+      public CompletableFuture<Void> ruleTypeSaved(RuleType ruleType) {
+        return fail();
+      }
+
+      @Override
+      public CompletableFuture<Void> ruleTypeDeleted(Long id) {
+        return fail();
+      }
+
+      @Override
+      public CompletableFuture<Void> ruleTypesCleared() {
+        return fail();
+      }
+
+      @Override
+      public Throwable failure() {
+        return failure;
+      }
+    });
+
+    StoreFailedException e = assertThrows(StoreFailedException.class,
+        () -> repo.saveIfUnique(change(1L, "20", true, LocalDateTime.now())));
+    assertSame(cause, e.getCause());
+    // the unlogged change must not be served, and neither is anything else
+    assertThrows(StoreFailedException.class, () -> repo.findLatestByRuleTypeId(1L));
+    assertThrows(StoreFailedException.class, () -> repo.findById(stored.getId()));
+    assertThrows(StoreFailedException.class, () -> repo.deleteById(stored.getId()));
+  }
+}
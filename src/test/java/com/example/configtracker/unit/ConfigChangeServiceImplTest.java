@@ -1,22 +1,39 @@
 package com.example.configtracker.unit;
 
+import com.example.configtracker.dto.BatchItemStatus;
+import com.example.configtracker.dto.ConfigChangeBatchItemDTO;
+import com.example.configtracker.dto.ConfigChangeBatchResultDTO;
+import com.example.configtracker.dto.ConfigChangeItemDTO;
 import com.example.configtracker.dto.ConfigChangeListDTO;
+import com.example.configtracker.dto.ConfigChangePageDTO;
+import com.example.configtracker.dto.EffectiveValueDTO;
+import com.example.configtracker.dto.RuleTypeStatsDTO;
 import com.example.configtracker.entities.ConfigChange;
 import com.example.configtracker.entities.RuleType;
 import com.example.configtracker.exception.APIException;
 import com.example.configtracker.exception.ResourceNotFoundException;
+import com.example.configtracker.repo.ChangeKey;
+import com.example.configtracker.repo.ChangeStats;
 import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.service.ChangeFeed;
+import com.example.configtracker.service.ConfigChangeMetrics;
 import com.example.configtracker.service.ConfigChangeServiceImpl;
 import com.example.configtracker.service.NotificationService;
 import com.example.configtracker.service.RuleTypeService;
+import com.example.configtracker.service.StoreRevision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,6 +50,20 @@ class ConfigChangeServiceImplTest {
   @Mock
   private RuleTypeService ruleTypeService;
 
+  @Mock
+  private ChangeFeed changeFeed;
+
+  @Mock
+  private StoreRevision storeRevision;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Spy
+  private ConfigChangeMetrics metrics = new ConfigChangeMetrics(meterRegistry);
+
+  @Spy
+  private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
   @InjectMocks
   private ConfigChangeServiceImpl configChangeService;
 
@@ -47,49 +78,68 @@ class ConfigChangeServiceImplTest {
     sampleChange.setChangedBy("admin");
     sampleChange.setCritical(true);
 
-    sampleRuleType = new RuleType();
-    sampleRuleType.setId(1L);
-    sampleRuleType.setName("MaxConnections");
-    sampleRuleType.setValueType("INTEGER");
+    sampleRuleType = new RuleType(1L, "MaxConnections", "INTEGER");
+  }
+
+  // stores like the repository does: the commit callback sees the change before saveIfUnique returns
+  private static Answer<Boolean> committing() {
+    return invocation -> {
+      invocation.<Consumer<ConfigChange>>getArgument(1).accept(invocation.getArgument(0));
+      return true;
+    };
   }
 
   @Test
   void logChange_shouldSaveAndNotify_whenCriticalAndNoDuplicate() {
     when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
-    when(configChangeRepo.findAll()).thenReturn(Collections.emptyList());
     when(configChangeRepo.generateId()).thenReturn(100L);
+    when(configChangeRepo.saveIfUnique(any(ConfigChange.class), any())).thenAnswer(committing());
 
     ConfigChange result = configChangeService.logChange(sampleChange);
 
     assertEquals(100L, result.getId());
     assertNotNull(result.getChangedAt());
-    verify(configChangeRepo).save(any(ConfigChange.class));
+    verify(configChangeRepo).saveIfUnique(any(ConfigChange.class), any());
     verify(notificationService).notify(contains("Critical configuration change"));
+    verify(changeFeed).changeSaved(argThat(item -> item.getId() == 100L && "MaxConnections".equals(item.getRuleName())));
+    verify(storeRevision).increment();
+    assertEquals(1, meterRegistry.get("configtracker.changes.log").timer().count());
+    assertEquals(1, meterRegistry.get("configtracker.changes.log.stage").tag("stage", "notify").timer().count());
   }
 
   @Test
   void logChange_shouldThrowAPIException_whenDuplicateExists() {
-    ConfigChange duplicate = new ConfigChange();
-    duplicate.setRuleTypeId(1L);
-    duplicate.setCurrentValue("42");
-    duplicate.setCritical(true);
+    when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
+    when(configChangeRepo.existsDuplicate(1L, "42", true)).thenReturn(true);
 
+    APIException exception = assertThrows(APIException.class, () ->
+        configChangeService.logChange(sampleChange));
+
+    assertTrue(exception.getMessage().contains("Duplicate not allowed"));
+    verify(configChangeRepo, never()).saveIfUnique(any(), any());
+    verify(storeRevision, never()).increment();
+    assertEquals(1, meterRegistry.get("configtracker.changes.rejected").tag("reason", "duplicate").counter().count());
+    assertEquals(0, meterRegistry.get("configtracker.changes.log").timer().count());
+  }
+
+  @Test
+  void logChange_shouldThrowAPIException_whenDuplicateRacesInsert() {
     when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
-    when(configChangeRepo.findAll()).thenReturn(List.of(duplicate));
+    when(configChangeRepo.generateId()).thenReturn(100L);
+    when(configChangeRepo.saveIfUnique(any(ConfigChange.class), any())).thenReturn(false);
 
     APIException exception = assertThrows(APIException.class, () ->
         configChangeService.logChange(sampleChange));
 
     assertTrue(exception.getMessage().contains("Duplicate not allowed"));
-    verify(configChangeRepo, never()).save(any());
+    verify(notificationService, never()).notify(any());
   }
 
   @Test
   void logChange_shouldThrowIllegalArgument_whenInvalidInteger() {
     sampleChange.setCurrentValue("abc");
-    sampleRuleType.setValueType("INTEGER");
+    sampleRuleType = new RuleType(1L, "MaxConnections", "INTEGER");
     when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
-    when(configChangeRepo.findAll()).thenReturn(Collections.emptyList());
 
     assertThrows(IllegalArgumentException.class, () ->
         configChangeService.logChange(sampleChange));
@@ -98,9 +148,8 @@ class ConfigChangeServiceImplTest {
   @Test
   void logChange_shouldThrowIllegalArgument_whenInvalidBoolean() {
     sampleChange.setCurrentValue("yes");
-    sampleRuleType.setValueType("BOOLEAN");
+    sampleRuleType = new RuleType(1L, "MaxConnections", "BOOLEAN");
     when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
-    when(configChangeRepo.findAll()).thenReturn(Collections.emptyList());
 
     assertThrows(IllegalArgumentException.class, () ->
         configChangeService.logChange(sampleChange));
@@ -127,11 +176,28 @@ class ConfigChangeServiceImplTest {
   @Test
   void delete_shouldDeleteAndReturn_whenExists() {
     when(configChangeRepo.findById(1L)).thenReturn(Optional.of(sampleChange));
+    doAnswer(invocation -> {
+      invocation.<Consumer<ConfigChange>>getArgument(1).accept(sampleChange);
+      return null;
+    }).when(configChangeRepo).deleteById(eq(1L), any());
 
     ConfigChange result = configChangeService.delete(1L);
 
     assertEquals(sampleChange, result);
-    verify(configChangeRepo).deleteById(1L);
+    verify(configChangeRepo).deleteById(eq(1L), any());
+    verify(changeFeed).changeDeleted(argThat(item -> "42".equals(item.getCurrentValue())));
+    verify(storeRevision).increment();
+  }
+
+  @Test
+  void delete_shouldKeepStoreRevision_whenConcurrentDeleteWins() {
+    when(configChangeRepo.findById(1L)).thenReturn(Optional.of(sampleChange));
+
+    configChangeService.delete(1L);
+
+    verify(configChangeRepo).deleteById(eq(1L), any());
+    verify(storeRevision, never()).increment();
+    verifyNoInteractions(changeFeed);
   }
 
   @Test
@@ -145,7 +211,8 @@ class ConfigChangeServiceImplTest {
   @Test
   void listChanges_shouldReturnDTOList_whenChangesExist() {
     sampleChange.setChangedAt(LocalDateTime.now().minusDays(1));
-    when(configChangeRepo.findAll()).thenReturn(List.of(sampleChange));
+    when(configChangeRepo.findHistoriesByChangedAtBetween(null, null))
+        .thenReturn(Map.of(1L, List.of(sampleChange)));
     when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
 
     List<ConfigChangeListDTO> result = configChangeService.listChanges(
@@ -155,14 +222,281 @@ class ConfigChangeServiceImplTest {
     assertEquals("MaxConnections", result.get(0).getRuleName());
   }
 
+  @Test
+  void listChanges_shouldReadOnlyMatchingRuleHistory_whenTypeGiven() {
+    sampleChange.setChangedAt(LocalDateTime.now().minusDays(1));
+    LocalDateTime from = LocalDateTime.now().minusDays(2);
+    when(ruleTypeService.findRuleTypeByName("maxconnections")).thenReturn(Optional.of(sampleRuleType));
+    when(configChangeRepo.findByRuleTypeIdAndChangedAtBetween(1L, from, null))
+        .thenReturn(List.of(sampleChange));
+
+    List<ConfigChangeListDTO> result = configChangeService.listChanges(
+        Optional.of("maxconnections"), Optional.of(from), Optional.empty());
+
+    assertEquals(1, result.size());
+    assertEquals(1L, result.get(0).getRuleTypeId());
+    assertEquals("42", result.get(0).getHistory().get(0).getCurrentValue());
+    verify(configChangeRepo, never()).findHistoriesByChangedAtBetween(any(), any());
+  }
+
+  @Test
+  void listChanges_shouldThrowAPIException_whenTypeUnknown() {
+    when(ruleTypeService.findRuleTypeByName("Unknown")).thenReturn(Optional.empty());
+
+    assertThrows(APIException.class, () ->
+        configChangeService.listChanges(Optional.of("Unknown"), Optional.empty(), Optional.empty()));
+  }
+
   @Test
   void listChanges_shouldThrowAPIException_whenNoChangesFound() {
-    when(configChangeRepo.findAll()).thenReturn(Collections.emptyList());
+    when(configChangeRepo.findHistoriesByChangedAtBetween(null, null)).thenReturn(Collections.emptyMap());
 
     assertThrows(APIException.class, () ->
         configChangeService.listChanges(Optional.empty(), Optional.empty(), Optional.empty()));
   }
 
+  @Test
+  void listChangesPage_shouldReturnCursorOnlyWhenMoreChangesFollow() {
+    LocalDateTime base = LocalDateTime.of(2025, 11, 10, 12, 0);
+    List<ConfigChange> stored = new ArrayList<>();
+    for (long i = 1; i <= 3; i++) {
+      ConfigChange change = new ConfigChange();
+      change.setId(i);
+      change.setRuleTypeId(1L);
+      change.setCurrentValue(String.valueOf(i));
+      change.setChangedAt(base.plusMinutes(i));
+      stored.add(change);
+    }
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    when(configChangeRepo.findPage(isNull(), isNull(), isNull(), isNull(), eq(3)))
+        .thenReturn(stored);
+
+    ConfigChangePageDTO first = configChangeService.listChangesPage(Optional.empty(), Optional.empty(),
+        Optional.empty(), Optional.empty(), 2);
+
+    assertEquals(2, first.getItems().size());
+    assertEquals("MaxConnections", first.getItems().get(1).getRuleName());
+    assertNotNull(first.getNextCursor());
+    verify(ruleTypeService, times(1)).findRuleTypeById(1L);
+
+    when(configChangeRepo.findPage(isNull(), isNull(), isNull(), eq(ChangeKey.of(stored.get(1))), eq(3)))
+        .thenReturn(List.of(stored.get(2)));
+
+    ConfigChangePageDTO last = configChangeService.listChangesPage(Optional.empty(), Optional.empty(),
+        Optional.empty(), Optional.of(first.getNextCursor()), 2);
+
+    assertEquals(3L, last.getItems().get(0).getId());
+    assertNull(last.getNextCursor());
+  }
+
+  @Test
+  void listChangesPage_shouldListChangesWhoseRuleTypeWasDeleted() {
+    ConfigChange orphan = new ConfigChange(1L, 9L, "10", "admin", LocalDateTime.now(), false);
+    ConfigChange current = new ConfigChange(2L, 1L, "20", "admin", LocalDateTime.now(), true);
+    when(ruleTypeService.findRuleTypeById(9L)).thenReturn(Optional.empty());
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    when(configChangeRepo.findPage(isNull(), isNull(), isNull(), isNull(), eq(11)))
+        .thenReturn(List.of(orphan, current));
+
+    ConfigChangePageDTO page = configChangeService.listChangesPage(Optional.empty(), Optional.empty(),
+        Optional.empty(), Optional.empty(), 10);
+
+    assertEquals(List.of(1L, 2L), page.getItems().stream().map(ConfigChangeItemDTO::getId).toList());
+    assertNull(page.getItems().get(0).getRuleName());
+    assertEquals("MaxConnections", page.getItems().get(1).getRuleName());
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  void listChangesPage_shouldReturnEmptyPage_whenTypeUnknown() {
+    when(ruleTypeService.findRuleTypeByName("Unknown")).thenReturn(Optional.empty());
+
+    ConfigChangePageDTO page = configChangeService.listChangesPage(Optional.of("Unknown"), Optional.empty(),
+        Optional.empty(), Optional.empty(), 10);
+
+    assertTrue(page.getItems().isEmpty());
+    assertNull(page.getNextCursor());
+    verifyNoInteractions(configChangeRepo);
+  }
+
+  @Test
+  void listChangesPage_shouldThrowAPIException_whenCursorMalformed() {
+    assertThrows(APIException.class, () -> configChangeService.listChangesPage(Optional.empty(),
+        Optional.empty(), Optional.empty(), Optional.of("not a cursor"), 10));
+  }
+
+  @Test
+  void exportChanges_shouldStreamEachChangeAndResolveRuleNameOnce() {
+    ConfigChange first = new ConfigChange(1L, 1L, "10", "admin", LocalDateTime.now(), false);
+    ConfigChange second = new ConfigChange(2L, 1L, "20", "admin", LocalDateTime.now(), true);
+    when(ruleTypeService.findRuleTypeByName("MaxConnections")).thenReturn(Optional.of(sampleRuleType));
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    doAnswer(invocation -> {
+      Consumer<ConfigChange> action = invocation.getArgument(3);
+      action.accept(first);
+      action.accept(second);
+      return null;
+    }).when(configChangeRepo).forEachInRange(eq(1L), isNull(), isNull(), any());
+
+    List<ConfigChangeItemDTO> exported = new ArrayList<>();
+    configChangeService.exportChanges(Optional.of("MaxConnections"), Optional.empty(), Optional.empty(),
+        exported::add);
+
+    assertEquals(List.of(1L, 2L), exported.stream().map(ConfigChangeItemDTO::getId).toList());
+    assertEquals("MaxConnections", exported.get(1).getRuleName());
+    verify(ruleTypeService, times(1)).findRuleTypeById(1L);
+  }
+
+  @Test
+  void exportChanges_shouldKeepStreaming_whenRuleTypeWasDeleted() {
+    ConfigChange orphan = new ConfigChange(1L, 9L, "10", "admin", LocalDateTime.now(), false);
+    ConfigChange orphanAgain = new ConfigChange(2L, 9L, "11", "admin", LocalDateTime.now(), false);
+    ConfigChange current = new ConfigChange(3L, 1L, "20", "admin", LocalDateTime.now(), true);
+    when(ruleTypeService.findRuleTypeById(9L)).thenReturn(Optional.empty());
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    doAnswer(invocation -> {
+      Consumer<ConfigChange> action = invocation.getArgument(3);
+      action.accept(orphan);
+      action.accept(orphanAgain);
+      action.accept(current);
+      return null;
+    }).when(configChangeRepo).forEachInRange(isNull(), isNull(), isNull(), any());
+
+    List<ConfigChangeItemDTO> exported = new ArrayList<>();
+    configChangeService.exportChanges(Optional.empty(), Optional.empty(), Optional.empty(), exported::add);
+
+    assertEquals(List.of(1L, 2L, 3L), exported.stream().map(ConfigChangeItemDTO::getId).toList());
+    assertNull(exported.get(0).getRuleName());
+    assertEquals("MaxConnections", exported.get(2).getRuleName());
+    verify(ruleTypeService, times(1)).findRuleTypeById(9L);
+  }
+
+  @Test
+  void exportChanges_shouldExportNothing_whenTypeUnknown() {
+    when(ruleTypeService.findRuleTypeByName("Unknown")).thenReturn(Optional.empty());
+
+    List<ConfigChangeItemDTO> exported = new ArrayList<>();
+    configChangeService.exportChanges(Optional.of("Unknown"), Optional.empty(), Optional.empty(), exported::add);
+
+    assertTrue(exported.isEmpty());
+    verifyNoInteractions(configChangeRepo);
+  }
+
+  @Test
+  void logChanges_shouldReportEachItemAndCommitValidOnesTogether() {
+    ConfigChange accepted = new ConfigChange(null, 1L, "10", "admin", null, true);
+    ConfigChange duplicate = new ConfigChange(null, 1L, "20", "admin", null, false);
+    ConfigChange badValue = new ConfigChange(null, 1L, "ten", "admin", null, false);
+    ConfigChange unknownRule = new ConfigChange(null, 9L, "10", "admin", null, false);
+    ConfigChange blank = new ConfigChange(null, 1L, "", "admin", null, false);
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    when(ruleTypeService.findRuleTypeById(9L)).thenReturn(Optional.empty());
+    when(configChangeRepo.generateIds(2)).thenReturn(50L);
+    when(configChangeRepo.saveAllIfUnique(eq(List.of(accepted, duplicate)), any())).thenAnswer(invocation -> {
+      invocation.<Consumer<ConfigChange>>getArgument(1).accept(accepted);
+      return new boolean[] {true, false};
+    });
+
+    ConfigChangeBatchResultDTO result = configChangeService.logChanges(
+        List.of(accepted, duplicate, badValue, unknownRule, blank));
+
+    assertEquals(1, result.getAccepted());
+    assertEquals(1, result.getDuplicates());
+    assertEquals(3, result.getInvalid());
+    assertEquals(List.of(BatchItemStatus.ACCEPTED, BatchItemStatus.DUPLICATE, BatchItemStatus.INVALID,
+            BatchItemStatus.INVALID, BatchItemStatus.INVALID),
+        result.getResults().stream().map(ConfigChangeBatchItemDTO::getStatus).toList());
+    assertEquals(50L, result.getResults().get(0).getId());
+    assertEquals(51L, duplicate.getId());
+    assertTrue(result.getResults().get(3).getMessage().contains("RuleType not found"));
+    assertEquals(3, meterRegistry.get("configtracker.changes.rejected").tag("reason", "invalid").counter().count());
+    verify(ruleTypeService, times(1)).findRuleTypeById(1L);
+    verify(notificationService, times(1)).notify(contains("Critical configuration change"));
+    verify(changeFeed, times(1)).changeSaved(argThat(item -> item.getId() == 50L));
+    verify(storeRevision, times(1)).increment();
+  }
+
+  @Test
+  void logChanges_shouldKeepStoreRevision_whenNothingAccepted() {
+    ConfigChange duplicate = new ConfigChange(null, 1L, "20", "admin", null, false);
+    ConfigChange badValue = new ConfigChange(null, 1L, "ten", "admin", null, false);
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    when(configChangeRepo.generateIds(1)).thenReturn(60L);
+    when(configChangeRepo.saveAllIfUnique(eq(List.of(duplicate)), any())).thenReturn(new boolean[] {false});
+
+    ConfigChangeBatchResultDTO result = configChangeService.logChanges(List.of(duplicate, badValue));
+
+    assertEquals(0, result.getAccepted());
+    verify(storeRevision, never()).increment();
+    verifyNoInteractions(changeFeed);
+  }
+
+  @Test
+  void logChanges_shouldThrowAPIException_whenBatchTooLarge() {
+    List<ConfigChange> changes = Collections.nCopies(1001, sampleChange);
+
+    assertThrows(APIException.class, () -> configChangeService.logChanges(changes));
+    verifyNoInteractions(configChangeRepo);
+  }
+
+  @Test
+  void getCurrentValueByName_shouldReturnLatestChange() {
+    ConfigChange latest = new ConfigChange(7L, 1L, "64", "admin", LocalDateTime.now(), false);
+    when(ruleTypeService.findRuleTypeByName("MaxConnections")).thenReturn(Optional.of(sampleRuleType));
+    when(configChangeRepo.findLatestByRuleTypeId(1L)).thenReturn(Optional.of(latest));
+
+    EffectiveValueDTO value = configChangeService.getCurrentValueByName("MaxConnections");
+
+    assertEquals("64", value.getCurrentValue());
+    assertEquals(7L, value.getChangeId());
+    assertEquals("INTEGER", value.getValueType());
+  }
+
+  @Test
+  void getCurrentValue_shouldThrowResourceNotFound_whenRuleHasNoChanges() {
+    when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
+    when(configChangeRepo.findLatestByRuleTypeId(1L)).thenReturn(Optional.empty());
+
+    assertThrows(ResourceNotFoundException.class, () -> configChangeService.getCurrentValue(1L));
+  }
+
+  @Test
+  void listCurrentValues_shouldSkipChangesOfDeletedRuleTypes() {
+    Map<Long, ConfigChange> latest = new LinkedHashMap<>();
+    latest.put(1L, new ConfigChange(7L, 1L, "64", "admin", LocalDateTime.now(), false));
+    latest.put(2L, new ConfigChange(8L, 2L, "on", "admin", LocalDateTime.now(), false));
+    when(configChangeRepo.findAllLatest()).thenReturn(latest);
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    when(ruleTypeService.findRuleTypeById(2L)).thenReturn(Optional.empty());
+
+    List<EffectiveValueDTO> values = configChangeService.listCurrentValues();
+
+    assertEquals(1, values.size());
+    assertEquals("MaxConnections", values.get(0).getRuleName());
+  }
+
+  @Test
+  void listValuesAsOf_shouldResolveRuleNamesForEachValue() {
+    LocalDateTime at = LocalDateTime.of(2025, 11, 10, 14, 32);
+    ConfigChange change = new ConfigChange(3L, 1L, "32", "admin", at.minusHours(1), false);
+    when(configChangeRepo.findAllAsOf(at)).thenReturn(Map.of(1L, change));
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+
+    List<EffectiveValueDTO> values = configChangeService.listValuesAsOf(at, Optional.empty());
+
+    assertEquals(1, values.size());
+    assertEquals("MaxConnections", values.get(0).getRuleName());
+    assertEquals("32", values.get(0).getCurrentValue());
+  }
+
+  @Test
+  void listValuesAsOf_shouldReturnEmpty_whenTypeUnknown() {
+    when(ruleTypeService.findRuleTypeByName("Unknown")).thenReturn(Optional.empty());
+
+    assertTrue(configChangeService.listValuesAsOf(LocalDateTime.now(), Optional.of("Unknown")).isEmpty());
+    verifyNoInteractions(configChangeRepo);
+  }
+
   @Test
   void testNotifyCalledForCriticalChange() {
     ConfigChange change = new ConfigChange();
@@ -172,12 +506,55 @@ class ConfigChangeServiceImplTest {
     change.setCritical(true);
 
     when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
-    when(configChangeRepo.findAll()).thenReturn(Collections.emptyList());
     when(configChangeRepo.generateId()).thenReturn(1L);
+    when(configChangeRepo.saveIfUnique(any(ConfigChange.class), any())).thenAnswer(committing());
 
     configChangeService.logChange(change);
 
     verify(notificationService, times(1))
         .notify(contains("Critical configuration change detected"));
   }
+
+  @Test
+  void listStats_shouldPutBusiestRuleTypesFirst() {
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+    Map<Long, ChangeStats> stats = new TreeMap<>();
+    stats.put(1L, new ChangeStats(10, 5, 2, start.plusHours(1), start, new int[] {1, 1}));
+    stats.put(2L, new ChangeStats(3, 0, 1, start.plusHours(1), start, new int[] {0, 3}));
+    stats.put(3L, new ChangeStats(1, 1, 1, start, start, new int[] {0, 0}));
+    when(configChangeRepo.findAllStats(any(LocalDateTime.class), eq(2))).thenReturn(stats);
+    when(ruleTypeService.findRuleTypeById(1L)).thenReturn(Optional.of(sampleRuleType));
+    when(ruleTypeService.findRuleTypeById(2L)).thenReturn(Optional.of(new RuleType(2L, "Timeout", "INTEGER")));
+    when(ruleTypeService.findRuleTypeById(3L)).thenReturn(Optional.empty());
+
+    List<RuleTypeStatsDTO> result = configChangeService.listStats(2);
+
+    assertEquals(List.of(2L, 1L), result.stream().map(RuleTypeStatsDTO::getRuleTypeId).toList());
+    RuleTypeStatsDTO busiest = result.get(0);
+    assertEquals("Timeout", busiest.getRuleName());
+    assertEquals(3, busiest.getChangesInWindow());
+    assertEquals(List.of(0, 3), busiest.getHourly());
+    assertEquals(0.5, result.get(1).getCriticalRatio());
+  }
+
+  @Test
+  void getStats_shouldReturnEmptyStats_whenRuleTypeHasNoChanges() {
+    when(ruleTypeService.getRuleTypeById(1L)).thenReturn(sampleRuleType);
+    when(configChangeRepo.findStats(eq(1L), any(LocalDateTime.class), eq(24))).thenReturn(Optional.empty());
+
+    RuleTypeStatsDTO result = configChangeService.getStats(1L, 24);
+
+    assertEquals("MaxConnections", result.getRuleName());
+    assertEquals(0, result.getChanges());
+    assertEquals(0.0, result.getCriticalRatio());
+    assertNull(result.getLastChangedAt());
+    assertEquals(24, result.getHourly().size());
+  }
+
+  @Test
+  void getStats_shouldRejectWindowOutOfRange() {
+    assertThrows(APIException.class, () -> configChangeService.getStats(1L, 0));
+    assertThrows(APIException.class, () -> configChangeService.listStats(ChangeStats.MAX_HOURS + 1));
+    verifyNoInteractions(configChangeRepo);
+  }
 }
@@ -0,0 +1,53 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.config.MdcTaskDecorator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MdcTaskDecoratorTest {
+
+  private final MdcTaskDecorator decorator = new MdcTaskDecorator();
+
+  @AfterEach
+  void clearMdc() {
+    MDC.clear();
+  }
+
+  @Test
+  void decorate_shouldCarryCorrelationId_toVirtualThread() throws InterruptedException {
+    MDC.put("X-Correlation-ID", "abc-123");
+    AtomicReference<String> seen = new AtomicReference<>();
+    Runnable task = decorator.decorate(() -> seen.set(MDC.get("X-Correlation-ID")));
+    MDC.clear();
+
+    Thread.ofVirtual().start(task).join();
+
+    assertEquals("abc-123", seen.get());
+  }
+
+  @Test
+  void decorate_shouldRestoreRunningThreadContext_afterTask() {
+    MDC.put("X-Correlation-ID", "submitter");
+    Runnable task = decorator.decorate(() -> assertEquals("submitter", MDC.get("X-Correlation-ID")));
+    MDC.put("X-Correlation-ID", "worker");
+
+    task.run();
+
+    assertEquals("worker", MDC.get("X-Correlation-ID"));
+  }
+
+  @Test
+  void decorate_shouldClearContext_whenSubmitterHadNone() {
+    Runnable task = decorator.decorate(() -> assertNull(MDC.get("X-Correlation-ID")));
+    MDC.put("X-Correlation-ID", "worker");
+
+    task.run();
+
+    assertEquals("worker", MDC.get("X-Correlation-ID"));
+  }
+}
@@ -0,0 +1,146 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.config.MdcTaskDecorator;
+import com.example.configtracker.service.NotificationProperties;
+import com.example.configtracker.service.NotificationServiceImpl;
+import com.example.configtracker.service.OverflowPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationServiceImplTest {
+
+  @TempDir
+  Path directory;
+
+  private NotificationProperties properties;
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    properties = new NotificationProperties();
+    properties.setFile(directory.resolve("logs/notifications.log"));
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void notify_shouldAppendAllNotifications_whenStopped() throws IOException {
+    NotificationServiceImpl service = new NotificationServiceImpl(properties, meterRegistry);
+    service.start();
+    for (int i = 0; i < 1_000; i++) {
+      service.notify("change " + i);
+    }
+    service.stop();
+
+    List<String> lines = Files.readAllLines(properties.getFile());
+    assertEquals(1_000, lines.size());
+    assertTrue(lines.get(999).endsWith(" - change 999"));
+    assertEquals(1_000, meterRegistry.counter("configtracker.notifications.written").count());
+    assertEquals(1_000, meterRegistry.get("configtracker.notifications.latency").timer().count());
+  }
+
+  @Test
+  void notify_shouldWriteFromVirtualThread_whenVirtualThreadsEnabled() throws IOException {
+    NotificationServiceImpl service = new NotificationServiceImpl(properties, meterRegistry,
+        new InternalThreads(true));
+    service.start();
+    service.notify("virtual change");
+    service.stop();
+
+    List<String> lines = Files.readAllLines(properties.getFile());
+    assertEquals(1, lines.size());
+    assertTrue(lines.get(0).endsWith(" - virtual change"));
+  }
+
+  @Test
+  void notify_shouldDropNewest_whenQueueFull() {
+    properties.setQueueCapacity(2);
+    properties.setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+    // writer not started, so nothing drains the queue
+    NotificationServiceImpl service = new NotificationServiceImpl(properties, meterRegistry);
+
+    for (int i = 0; i < 5; i++) {
+      service.notify("change " + i);
+    }
+
+    assertEquals(3, meterRegistry.counter("configtracker.notifications.dropped").count());
+    assertEquals(2, meterRegistry.get("configtracker.notifications.queue.depth").gauge().value());
+  }
+
+  @Test
+  void notify_shouldKeepLatest_whenDroppingOldest() throws IOException {
+    properties.setQueueCapacity(2);
+    properties.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+    NotificationServiceImpl service = new NotificationServiceImpl(properties, meterRegistry);
+
+    for (int i = 0; i < 5; i++) {
+      service.notify("change " + i);
+    }
+    service.start();
+    service.stop();
+
+    List<String> lines = Files.readAllLines(properties.getFile());
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).endsWith("change 3"));
+    assertTrue(lines.get(1).endsWith("change 4"));
+    assertEquals(3, meterRegistry.counter("configtracker.notifications.dropped").count());
+  }
+
+  @Test
+  void notify_shouldRejectAndCount_afterStop() throws IOException {
+    NotificationServiceImpl service = new NotificationServiceImpl(properties, meterRegistry);
+    service.start();
+    service.notify("before stop");
+    service.stop();
+
+    service.notify("after stop");
+
+    List<String> lines = Files.readAllLines(properties.getFile());
+    assertEquals(1, lines.size());
+    assertTrue(lines.get(0).endsWith(" - before stop"));
+    assertEquals(1, meterRegistry.counter("configtracker.notifications.rejected").count());
+    assertEquals(0, meterRegistry.get("configtracker.notifications.queue.depth").gauge().value());
+  }
+
+  @Test
+  void notify_shouldReportLostNotificationInCallersMdc_whenWriteFails() throws IOException {
+    // a directory where the file should be makes every write fail
+    Files.createDirectories(properties.getFile());
+    Queue<String> seen = new ConcurrentLinkedQueue<>();
+    MdcTaskDecorator decorator = new MdcTaskDecorator() {
+      @Override
+      public Runnable decorate(Runnable runnable) {
+        return super.decorate(() -> {
+          seen.add(MDC.get("X-Correlation-ID"));
+          runnable.run();
+        });
+      }
+    };
+    NotificationServiceImpl service = new NotificationServiceImpl(properties, meterRegistry,
+        InternalThreads.PLATFORM, decorator);
+    MDC.put("X-Correlation-ID", "abc-123");
+    try {
+      service.notify("lost change");
+    } finally {
+      MDC.clear();
+    }
+    service.start();
+    service.stop();
+
+    assertEquals(List.of("abc-123"), List.copyOf(seen));
+    assertEquals(1, meterRegistry.counter("configtracker.notifications.write.failures").count());
+  }
+}
@@ -0,0 +1,287 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.exception.StoreFailedException;
+import com.example.configtracker.persistence.FsyncPolicy;
+import com.example.configtracker.persistence.PersistenceProperties;
+import com.example.configtracker.persistence.RepositoryPersistence;
+import com.example.configtracker.persistence.SnapshotFile;
+import com.example.configtracker.persistence.WriteAheadLog;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RuleTypeRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryPersistenceTest {
+
+  @TempDir
+  Path directory;
+
+  private PersistenceProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new PersistenceProperties();
+    properties.setEnabled(true);
+    properties.setDirectory(directory);
+    properties.setFsync(FsyncPolicy.ALWAYS);
+    properties.setSnapshotInterval(Duration.ZERO);
+  }
+
+  private ConfigChange change(long ruleTypeId, String value) {
+    ConfigChange change = new ConfigChange();
+    change.setRuleTypeId(ruleTypeId);
+    change.setCurrentValue(value);
+    change.setChangedBy("admin");
+    change.setCritical(true);
+    change.setChangedAt(LocalDateTime.of(2025, 11, 10, 12, 0, 0, 123_456_789));
+    return change;
+  }
+
+  private RuleType ruleType(String name) {
+    RuleType ruleType = new RuleType(null, name, "INTEGER");
+    return ruleType;
+  }
+
+  private RepositoryPersistence start(ConfigChangeRepo changes, RuleTypeRepo ruleTypes) throws IOException {
+    RepositoryPersistence persistence = new RepositoryPersistence(properties, changes, ruleTypes);
+    persistence.start();
+    return persistence;
+  }
+
+  @Test
+  void start_shouldReplayLoggedMutations() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RuleTypeRepo ruleTypes = new RuleTypeRepo();
+    RepositoryPersistence persistence = start(changes, ruleTypes);
+    RuleType created = ruleTypes.save(ruleType("MaxConnections"));
+    RuleType deleted = ruleTypes.save(ruleType("Timeout"));
+    RuleType renamed = created.update("ConnectionLimit", "INTEGER");
+    assertEquals(RuleTypeRepo.Swap.SWAPPED, ruleTypes.compareAndSet(created, renamed));
+    ruleTypes.deleteById(deleted.getId());
+    ConfigChange kept = changes.save(change(renamed.getId(), "10"));
+    ConfigChange removed = changes.save(change(renamed.getId(), "20"));
+    changes.deleteById(removed.getId());
+    persistence.stop();
+
+    ConfigChangeRepo restoredChanges = new ConfigChangeRepo();
+    RuleTypeRepo restoredRuleTypes = new RuleTypeRepo();
+    start(restoredChanges, restoredRuleTypes).stop();
+
+    assertEquals(List.of(kept), restoredChanges.findAll());
+    assertTrue(restoredChanges.existsDuplicate(renamed.getId(), "10", true));
+    assertEquals(List.of(renamed), restoredRuleTypes.findAll());
+    assertTrue(restoredRuleTypes.findByName("MaxConnections").isEmpty());
+    assertEquals(removed.getId() + 1, restoredChanges.generateId());
+  }
+
+  @Test
+  void start_shouldTruncateTornRecordAtEndOfLog() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RepositoryPersistence persistence = start(changes, new RuleTypeRepo());
+    ConfigChange kept = changes.save(change(1L, "10"));
+    persistence.stop();
+
+    Path segment = WriteAheadLog.segmentPath(directory, WriteAheadLog.segments(directory).get(0));
+    try (FileChannel file = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+      // frame header promising more bytes than were written before the "crash"
+      file.write(ByteBuffer.allocate(10).putInt(100).putInt(0).flip());
+    }
+
+    ConfigChangeRepo restored = new ConfigChangeRepo();
+    start(restored, new RuleTypeRepo()).stop();
+
+    assertEquals(List.of(kept), restored.findAll());
+  }
+
+  @Test
+  void start_shouldFail_whenRecordLengthIsCorruptBeforeEndOfLog() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RepositoryPersistence persistence = start(changes, new RuleTypeRepo());
+    for (int i = 0; i < 3; i++) {
+      changes.save(change(1L, String.valueOf(i)));
+    }
+    persistence.stop();
+    Path segment = WriteAheadLog.segmentPath(directory, WriteAheadLog.segments(directory).get(0));
+    long size = Files.size(segment);
+
+    // the length of the first record, right after the 8-byte segment header
+    for (int length : new int[] {-1, Integer.MAX_VALUE, 3}) {
+      ByteBuffer original = ByteBuffer.allocate(4);
+      try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        file.read(original, 8);
+        file.write(ByteBuffer.allocate(4).putInt(length).flip(), 8);
+      }
+
+      assertThrows(IllegalStateException.class, () -> start(new ConfigChangeRepo(), new RuleTypeRepo()));
+      // the records after the damaged one are still there for repair
+      assertEquals(size, Files.size(segment));
+
+      try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+        file.write(original.flip(), 8);
+      }
+    }
+  }
+
+  @Test
+  void start_shouldLoadSnapshotAndReplayLaterSegments() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RuleTypeRepo ruleTypes = new RuleTypeRepo();
+    RepositoryPersistence persistence = start(changes, ruleTypes);
+    RuleType ruleType = ruleTypes.save(ruleType("MaxConnections"));
+    ConfigChange beforeSnapshot = changes.save(change(ruleType.getId(), "10"));
+    ConfigChange deletedBeforeSnapshot = changes.save(change(ruleType.getId(), "20"));
+    changes.deleteById(deletedBeforeSnapshot.getId());
+
+    SnapshotFile.Header header = persistence.snapshot();
+    ConfigChange afterSnapshot = changes.save(change(ruleType.getId(), "30"));
+    changes.deleteById(beforeSnapshot.getId());
+    persistence.stop();
+
+    assertEquals(1, header.ruleTypeCount());
+    assertEquals(1, header.changeCount());
+    assertEquals(header, SnapshotFile.verify(SnapshotFile.path(directory, header.walSegment())));
+
+    ConfigChangeRepo restored = new ConfigChangeRepo();
+    RuleTypeRepo restoredRuleTypes = new RuleTypeRepo();
+    start(restored, restoredRuleTypes).stop();
+
+    assertEquals(List.of(afterSnapshot), restored.findAll());
+    assertEquals(List.of(ruleType), restoredRuleTypes.findAll());
+    assertEquals(afterSnapshot.getId() + 1, restored.generateId());
+  }
+
+  @Test
+  void snapshot_shouldDropSegmentsNoLongerNeeded() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RepositoryPersistence persistence = start(changes, new RuleTypeRepo());
+    for (int i = 0; i < 3; i++) {
+      changes.save(change(1L, String.valueOf(i)));
+      persistence.snapshot();
+    }
+    persistence.stop();
+
+    List<Long> snapshots = SnapshotFile.snapshots(directory);
+    assertEquals(2, snapshots.size());
+    assertTrue(WriteAheadLog.segments(directory).stream().allMatch(s -> s >= snapshots.get(1)));
+
+    ConfigChangeRepo restored = new ConfigChangeRepo();
+    start(restored, new RuleTypeRepo()).stop();
+    assertEquals(3, restored.count());
+  }
+
+  @Test
+  void start_shouldFallBackToOlderSnapshot_whenNewestIsCorrupt() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RepositoryPersistence persistence = start(changes, new RuleTypeRepo());
+    changes.save(change(1L, "10"));
+    persistence.snapshot();
+    changes.save(change(1L, "20"));
+    SnapshotFile.Header newest = persistence.snapshot();
+    persistence.stop();
+
+    Path newestFile = SnapshotFile.path(directory, newest.walSegment());
+    byte[] bytes = Files.readAllBytes(newestFile);
+    bytes[bytes.length - 1] ^= 0x7f;
+    Files.write(newestFile, bytes);
+
+    ConfigChangeRepo restored = new ConfigChangeRepo();
+    start(restored, new RuleTypeRepo()).stop();
+    assertEquals(2, restored.count());
+  }
+
+  @Test
+  void start_shouldFallBackToOlderSnapshot_whenNewestFailsAfterLoadingRecords() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RuleTypeRepo ruleTypes = new RuleTypeRepo();
+    RepositoryPersistence persistence = start(changes, ruleTypes);
+    RuleType ruleType = ruleTypes.save(ruleType("Timeout"));
+    ConfigChange first = changes.save(change(ruleType.getId(), "10"));
+    persistence.snapshot();
+    ConfigChange second = changes.save(change(ruleType.getId(), "20"));
+    SnapshotFile.Header newest = persistence.snapshot();
+    persistence.stop();
+
+    // the body still passes its checksum, but the header promises a record more than it holds,
+    // so decoding fails only after every real record was loaded
+    Path newestFile = SnapshotFile.path(directory, newest.walSegment());
+    try (FileChannel file = FileChannel.open(newestFile, StandardOpenOption.WRITE)) {
+      file.write(ByteBuffer.allocate(8).putLong(newest.changeCount() + 1).flip(), 48);
+    }
+
+    ConfigChangeRepo restored = new ConfigChangeRepo();
+    RuleTypeRepo restoredRuleTypes = new RuleTypeRepo();
+    start(restored, restoredRuleTypes).stop();
+
+    assertEquals(List.of(first, second), restored.findAll().stream()
+        .sorted(Comparator.comparing(ConfigChange::getId)).toList());
+    assertEquals(List.of(ruleType), restoredRuleTypes.findAll());
+    assertEquals(second.getId() + 1, restored.generateId());
+  }
+
+  @Test
+  void snapshot_shouldReadRecordsAcrossMappingWindows() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RuleTypeRepo ruleTypes = new RuleTypeRepo();
+    RepositoryPersistence persistence = start(changes, ruleTypes);
+    ruleTypes.save(ruleType("MaxConnections"));
+    for (int i = 0; i < 50; i++) {
+      changes.save(change(1L, String.valueOf(i * 997)));
+    }
+    SnapshotFile.Header header = persistence.snapshot();
+    persistence.stop();
+
+    Path file = SnapshotFile.path(directory, header.walSegment());
+    List<ConfigChange> whole = new ArrayList<>();
+    SnapshotFile.read(file, ruleType -> {
+    }, whole::add);
+    // windows smaller than the body, with records cut off at almost every window end
+    List<RuleType> restoredRules = new ArrayList<>();
+    List<ConfigChange> windowed = new ArrayList<>();
+    assertEquals(header, SnapshotFile.read(file, restoredRules::add, windowed::add, 64));
+
+    assertEquals(50, windowed.size());
+    assertEquals(whole, windowed);
+    assertEquals(ruleTypes.findAll(), restoredRules);
+  }
+
+  @Test
+  void failedCommit_shouldStopRepositories_andKeepLogConsistent() throws IOException {
+    ConfigChangeRepo changes = new ConfigChangeRepo();
+    RuleTypeRepo ruleTypes = new RuleTypeRepo();
+    RepositoryPersistence persistence = start(changes, ruleTypes);
+    ConfigChange kept = changes.save(change(1L, "10"));
+    // the segment the next rotation wants already exists, so the log fails to continue
+    List<Long> segments = WriteAheadLog.segments(directory);
+    Files.createFile(WriteAheadLog.segmentPath(directory, segments.get(segments.size() - 1) + 1));
+    assertThrows(RuntimeException.class, persistence::snapshot);
+
+    assertThrows(StoreFailedException.class, () -> changes.save(change(1L, "20")));
+    assertThrows(StoreFailedException.class, () -> ruleTypes.save(ruleType("Timeout")));
+    assertThrows(StoreFailedException.class, changes::findAll);
+    assertThrows(StoreFailedException.class, () -> ruleTypes.findById(1L));
+    persistence.stop();
+
+    ConfigChangeRepo restoredChanges = new ConfigChangeRepo();
+    RuleTypeRepo restoredRuleTypes = new RuleTypeRepo();
+    start(restoredChanges, restoredRuleTypes).stop();
+    assertEquals(List.of(kept), restoredChanges.findAll());
+    assertTrue(restoredRuleTypes.findAll().isEmpty());
+  }
+}
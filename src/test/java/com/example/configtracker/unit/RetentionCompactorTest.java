@@ -0,0 +1,121 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.config.InternalThreads;
+import com.example.configtracker.entities.ConfigChange;
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.ConfigChangeRepo;
+import com.example.configtracker.repo.RuleTypeRepo;
+import com.example.configtracker.repo.StorageMode;
+import com.example.configtracker.service.RetentionCompactor;
+import com.example.configtracker.service.RetentionProperties;
+import com.example.configtracker.service.StoreRevision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetentionCompactorTest {
+
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RetentionProperties properties = new RetentionProperties();
+  private final StoreRevision storeRevision = new StoreRevision();
+  private ConfigChangeRepo configChangeRepo;
+  private RuleTypeRepo ruleTypeRepo;
+  private RetentionCompactor compactor;
+
+  @BeforeEach
+  void setUp() {
+    configChangeRepo = new ConfigChangeRepo(StorageMode.COLUMNAR);
+    ruleTypeRepo = new RuleTypeRepo();
+    compactor = new RetentionCompactor(properties, configChangeRepo, ruleTypeRepo, storeRevision,
+        InternalThreads.PLATFORM, meterRegistry);
+  }
+
+  private Long ruleType(String name) {
+    return ruleTypeRepo.create(new RuleType(null, name, "STRING")).orElseThrow().getId();
+  }
+
+  private void history(Long ruleTypeId, int changes) {
+    for (int i = 0; i < changes; i++) {
+      ConfigChange change = new ConfigChange();
+      change.setRuleTypeId(ruleTypeId);
+      change.setCurrentValue(ruleTypeId + "-" + i);
+      change.setChangedBy("admin");
+      change.setChangedAt(BASE.plusMinutes(i));
+      configChangeRepo.save(change);
+    }
+  }
+
+  @Test
+  void compact_shouldApplyDefaultsAndPerRuleOverrides() {
+    Long flags = ruleType("FeatureFlag");
+    Long limits = ruleType("RateLimit");
+    Long audit = ruleType("AuditLevel");
+    history(flags, 100);
+    history(limits, 100);
+    history(audit, 100);
+    properties.setMaxVersions(50);
+    RetentionProperties.Rule flagRule = new RetentionProperties.Rule();
+    flagRule.setMaxVersions(5);
+    RetentionProperties.Rule auditRule = new RetentionProperties.Rule();
+    auditRule.setMaxVersions(0);
+    auditRule.setMaxAge(Duration.ofMinutes(30));
+    properties.getRules().put("featureflag", flagRule);
+    properties.getRules().put("AuditLevel", auditRule);
+    properties.getRules().put("Missing", flagRule);
+    properties.setBatchSize(7);
+
+    assertEquals(95 + 50 + 70, compactor.compact(BASE.plusMinutes(100)));
+
+    assertEquals(5, configChangeRepo.findByRuleTypeIdAndChangedAtBetween(flags, null, null).size());
+    assertEquals(50, configChangeRepo.findByRuleTypeIdAndChangedAtBetween(limits, null, null).size());
+    assertEquals(30, configChangeRepo.findByRuleTypeIdAndChangedAtBetween(audit, null, null).size());
+    assertEquals(1, storeRevision.current());
+    assertEquals(215, meterRegistry.counter("configtracker.retention.removed").count());
+    assertEquals(1, meterRegistry.timer("configtracker.retention.pass").count());
+
+    assertEquals(0, compactor.compact(BASE.plusMinutes(100)));
+    assertEquals(1, storeRevision.current());
+  }
+
+  @Test
+  void compact_shouldKeepLatestChangePastMaxAge() {
+    Long flags = ruleType("FeatureFlag");
+    history(flags, 3);
+    properties.setMaxAge(Duration.ofDays(1));
+
+    assertEquals(2, compactor.compact(BASE.plusDays(30)));
+
+    List<ConfigChange> left = configChangeRepo.findByRuleTypeIdAndChangedAtBetween(flags, null, null);
+    assertEquals(List.of(configChangeRepo.findLatestByRuleTypeId(flags).orElseThrow()), left);
+    assertEquals(BASE.plusMinutes(2), left.get(0).getChangedAt());
+  }
+
+  @Test
+  void compact_shouldReportReclaimedColumnSpace() {
+    Long flags = ruleType("FeatureFlag");
+    history(flags, 10_000);
+    properties.setMaxVersions(100);
+
+    assertEquals(9_900, compactor.compact(BASE.plusDays(1)));
+
+    assertTrue(meterRegistry.counter("configtracker.retention.reclaimed").count() > 0);
+    assertEquals(100, configChangeRepo.count());
+    assertEquals(100, configChangeRepo.findAll().size());
+  }
+
+  @Test
+  void compact_shouldKeepEverythingByDefault() {
+    history(ruleType("FeatureFlag"), 10);
+
+    assertEquals(0, compactor.compact(BASE.plusYears(10)));
+    assertEquals(10, configChangeRepo.count());
+  }
+}
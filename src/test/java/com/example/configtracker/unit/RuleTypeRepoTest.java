@@ -0,0 +1,135 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.repo.RuleTypeRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleTypeRepoTest {
+
+  private RuleTypeRepo repo;
+
+  @BeforeEach
+  void setUp() {
+    repo = new RuleTypeRepo();
+  }
+
+  private RuleType ruleType(String name) {
+    RuleType ruleType = new RuleType(null, name, "INTEGER");
+    return ruleType;
+  }
+
+  @Test
+  void findByName_shouldIgnoreCase() {
+    RuleType saved = repo.save(ruleType("MaxConnections"));
+
+    assertEquals(saved, repo.findByName("maxconnections").orElseThrow());
+    assertTrue(repo.existsByName("MAXCONNECTIONS"));
+    assertFalse(repo.existsByName("MinConnections"));
+  }
+
+  @Test
+  void save_shouldMoveNameIndex_whenRenamed() {
+    RuleType saved = repo.save(ruleType("MaxConnections"));
+
+    repo.save(saved.update("ConnectionLimit", "INTEGER"));
+
+    assertFalse(repo.existsByName("MaxConnections"));
+    assertEquals(saved.getId(), repo.findByName("connectionlimit").orElseThrow().getId());
+  }
+
+  @Test
+  void create_shouldStartAtVersionOne_andRejectTakenName() {
+    RuleType created = repo.create(ruleType("MaxConnections")).orElseThrow();
+
+    assertEquals(1, created.getVersion());
+    assertTrue(repo.create(ruleType("maxconnections")).isEmpty());
+    assertEquals(1, repo.count());
+  }
+
+  @Test
+  void compareAndSet_shouldReplaceOnlyExpectedVersion() {
+    RuleType v1 = repo.create(ruleType("MaxConnections")).orElseThrow();
+    RuleType v2 = v1.update("MaxConnections", "STRING");
+
+    assertEquals(RuleTypeRepo.Swap.SWAPPED, repo.compareAndSet(v1, v2));
+    assertEquals(RuleTypeRepo.Swap.STALE, repo.compareAndSet(v1, v1.update("ConnectionLimit", "INTEGER")));
+
+    assertEquals(v2, repo.findById(v1.getId()).orElseThrow());
+    assertEquals(2, v2.getVersion());
+    assertFalse(repo.existsByName("ConnectionLimit"));
+  }
+
+  @Test
+  void compareAndSet_shouldKeepNameOfCurrentVersion_whenStaleRenameUsesSameName() {
+    RuleType v1 = repo.create(ruleType("MaxConnections")).orElseThrow();
+    RuleType v2 = v1.update("Target", "INTEGER");
+
+    assertEquals(RuleTypeRepo.Swap.SWAPPED, repo.compareAndSet(v1, v2));
+    assertEquals(RuleTypeRepo.Swap.STALE, repo.compareAndSet(v1, v1.update("Target", "STRING")));
+
+    assertEquals(v2, repo.findByName("target").orElseThrow());
+    assertTrue(repo.create(ruleType("TARGET")).isEmpty());
+  }
+
+  @Test
+  void compareAndSet_shouldRejectNameHeldByAnotherRule() {
+    RuleType first = repo.create(ruleType("MaxConnections")).orElseThrow();
+    repo.create(ruleType("Timeout")).orElseThrow();
+
+    assertEquals(RuleTypeRepo.Swap.NAME_TAKEN, repo.compareAndSet(first, first.update("TIMEOUT", "INTEGER")));
+    assertEquals(first, repo.findById(first.getId()).orElseThrow());
+  }
+
+  @Test
+  void compareAndSet_shouldLetOnlyOneConcurrentRenameClaimAName() throws InterruptedException {
+    int writers = 8;
+    List<RuleType> ruleTypes = new ArrayList<>();
+    for (int i = 0; i < writers; i++) {
+      ruleTypes.add(repo.create(ruleType("Rule" + i)).orElseThrow());
+    }
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger swapped = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (RuleType ruleType : ruleTypes) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        if (repo.compareAndSet(ruleType, ruleType.update("Contended", "INTEGER")) == RuleTypeRepo.Swap.SWAPPED) {
+          swapped.incrementAndGet();
+        }
+      }));
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, swapped.get());
+    assertEquals(1, repo.findAll().stream().filter(r -> r.getName().equals("Contended")).count());
+    for (RuleType stored : repo.findAll()) {
+      assertEquals(stored, repo.findByName(stored.getName()).orElseThrow());
+    }
+    assertEquals(writers - 1, ruleTypes.stream().filter(r -> repo.existsByName(r.getName())).count());
+  }
+
+  @Test
+  void deleteById_shouldReleaseName() {
+    RuleType saved = repo.save(ruleType("MaxConnections"));
+
+    repo.deleteById(saved.getId());
+
+    assertTrue(repo.findByName("MaxConnections").isEmpty());
+    assertNotEquals(saved.getId(), repo.save(ruleType("MaxConnections")).getId());
+  }
+}
@@ -4,8 +4,10 @@ import com.example.configtracker.entities.RuleType;
 import com.example.configtracker.exception.APIException;
 import com.example.configtracker.exception.InvalidValueTypeException;
 import com.example.configtracker.exception.ResourceNotFoundException;
+import com.example.configtracker.exception.VersionConflictException;
 import com.example.configtracker.repo.RuleTypeRepo;
 import com.example.configtracker.service.RuleTypeServiceImpl;
+import com.example.configtracker.service.StoreRevision;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,6 +25,9 @@ class RuleTypeServiceImplTest {
   @Mock
   private RuleTypeRepo ruleTypeRepo;
 
+  @Mock
+  private StoreRevision storeRevision;
+
   @InjectMocks
   private RuleTypeServiceImpl ruleTypeService;
 
@@ -30,42 +35,39 @@ class RuleTypeServiceImplTest {
 
   @BeforeEach
   void setUp() {
-    sampleRule = new RuleType();
-    sampleRule.setId(1L);
-    sampleRule.setName("MaxConnections");
-    sampleRule.setValueType("INTEGER");
+    sampleRule = new RuleType(1L, "MaxConnections", "INTEGER", 1);
   }
 
   @Test
   void createRuleType_shouldSave_whenValid() {
-    when(ruleTypeRepo.findByName("MaxConnections")).thenReturn(Optional.empty());
-    when(ruleTypeRepo.save(any(RuleType.class))).thenReturn(sampleRule);
+    when(ruleTypeRepo.create(any(RuleType.class))).thenReturn(Optional.of(sampleRule));
 
     RuleType result = ruleTypeService.createRuleType(sampleRule);
 
     assertEquals("MaxConnections", result.getName());
     assertEquals("INTEGER", result.getValueType());
-    verify(ruleTypeRepo).save(sampleRule);
+    verify(ruleTypeRepo).create(sampleRule);
+    verify(storeRevision).increment();
   }
 
   @Test
   void createRuleType_shouldThrowAPIException_whenNameExists() {
-    when(ruleTypeRepo.findByName("MaxConnections")).thenReturn(Optional.of(sampleRule));
+    when(ruleTypeRepo.create(any(RuleType.class))).thenReturn(Optional.empty());
 
     APIException ex = assertThrows(APIException.class, () ->
         ruleTypeService.createRuleType(sampleRule));
 
     assertTrue(ex.getMessage().contains("already exists"));
-    verify(ruleTypeRepo, never()).save(any());
+    verify(storeRevision, never()).increment();
   }
 
   @Test
   void createRuleType_shouldThrowInvalidValueTypeException_whenInvalidValueType() {
-    sampleRule.setValueType("INVALID");
+    RuleType invalid = new RuleType(null, "MaxConnections", "INVALID");
 
     assertThrows(InvalidValueTypeException.class, () ->
-        ruleTypeService.createRuleType(sampleRule));
-    verify(ruleTypeRepo, never()).save(any());
+        ruleTypeService.createRuleType(invalid));
+    verify(ruleTypeRepo, never()).create(any());
   }
 
   @Test
@@ -103,37 +105,71 @@ class RuleTypeServiceImplTest {
 
   @Test
   void updateRuleType_shouldUpdate_whenValid() {
-    RuleType updated = new RuleType();
-    updated.setName("ConnectionLimit");
-    updated.setValueType("INTEGER");
+    RuleType updated = new RuleType(null, "ConnectionLimit", "INTEGER");
 
     when(ruleTypeRepo.findById(1L)).thenReturn(Optional.of(sampleRule));
-    when(ruleTypeRepo.findByName("ConnectionLimit")).thenReturn(Optional.empty());
-    when(ruleTypeRepo.save(any(RuleType.class))).thenReturn(updated);
+    when(ruleTypeRepo.compareAndSet(eq(sampleRule), any(RuleType.class))).thenReturn(RuleTypeRepo.Swap.SWAPPED);
 
     RuleType result = ruleTypeService.updateRuleType(1L, updated);
 
+    assertEquals(1L, result.getId());
     assertEquals("ConnectionLimit", result.getName());
     assertEquals("INTEGER", result.getValueType());
+    assertEquals(2, result.getVersion());
+    assertEquals("MaxConnections", sampleRule.getName());
+    verify(storeRevision).increment();
+  }
+
+  @Test
+  void updateRuleType_shouldRetry_whenConcurrentUpdateWins() {
+    RuleType concurrent = sampleRule.update("MaxConnections", "STRING");
+    RuleType updated = new RuleType(null, "ConnectionLimit", "INTEGER");
+
+    when(ruleTypeRepo.findById(1L)).thenReturn(Optional.of(sampleRule), Optional.of(concurrent));
+    when(ruleTypeRepo.compareAndSet(eq(sampleRule), any(RuleType.class))).thenReturn(RuleTypeRepo.Swap.STALE);
+    when(ruleTypeRepo.compareAndSet(eq(concurrent), any(RuleType.class))).thenReturn(RuleTypeRepo.Swap.SWAPPED);
+
+    RuleType result = ruleTypeService.updateRuleType(1L, updated);
+
+    assertEquals("ConnectionLimit", result.getName());
+    assertEquals(3, result.getVersion());
+  }
+
+  @Test
+  void updateRuleType_shouldThrowVersionConflict_whenIfMatchIsStale() {
+    RuleType updated = new RuleType(null, "ConnectionLimit", "INTEGER");
+    when(ruleTypeRepo.findById(1L)).thenReturn(Optional.of(sampleRule.update("MaxConnections", "STRING")));
+
+    assertThrows(VersionConflictException.class, () -> ruleTypeService.updateRuleType(1L, updated, 1L));
+    verify(ruleTypeRepo, never()).compareAndSet(any(), any());
+  }
+
+  @Test
+  void updateRuleType_shouldThrowVersionConflict_whenExpectedVersionLosesRace() {
+    RuleType concurrent = sampleRule.update("MaxConnections", "STRING");
+    RuleType updated = new RuleType(null, "ConnectionLimit", "INTEGER");
+
+    when(ruleTypeRepo.findById(1L)).thenReturn(Optional.of(sampleRule), Optional.of(concurrent));
+    when(ruleTypeRepo.compareAndSet(eq(sampleRule), any(RuleType.class))).thenReturn(RuleTypeRepo.Swap.STALE);
+
+    assertThrows(VersionConflictException.class, () -> ruleTypeService.updateRuleType(1L, updated, 1L));
+    verify(storeRevision, never()).increment();
   }
 
   @Test
   void updateRuleType_shouldThrowAPIException_whenNameAlreadyExists() {
-    RuleType updated = new RuleType();
-    updated.setName("ExistingRule");
-    updated.setValueType("INTEGER");
+    RuleType updated = new RuleType(null, "ExistingRule", "INTEGER");
 
     when(ruleTypeRepo.findById(1L)).thenReturn(Optional.of(sampleRule));
-    when(ruleTypeRepo.findByName("ExistingRule")).thenReturn(Optional.of(new RuleType()));
+    when(ruleTypeRepo.compareAndSet(eq(sampleRule), any(RuleType.class))).thenReturn(RuleTypeRepo.Swap.NAME_TAKEN);
 
     assertThrows(APIException.class, () -> ruleTypeService.updateRuleType(1L, updated));
+    verify(storeRevision, never()).increment();
   }
 
   @Test
   void updateRuleType_shouldThrowInvalidValueTypeException_whenInvalidValueType() {
-    RuleType updated = new RuleType();
-    updated.setName("NewName");
-    updated.setValueType("WRONG");
+    RuleType updated = new RuleType(null, "NewName", "WRONG");
 
     assertThrows(InvalidValueTypeException.class, () ->
         ruleTypeService.updateRuleType(1L, updated));
@@ -148,6 +184,7 @@ class RuleTypeServiceImplTest {
 
     assertEquals(sampleRule, result);
     verify(ruleTypeRepo).deleteById(1L);
+    verify(storeRevision).increment();
   }
 
   @Test
@@ -0,0 +1,61 @@
+package com.example.configtracker.unit;
+
+import com.example.configtracker.entities.RuleType;
+import com.example.configtracker.entities.ValueType;
+import com.example.configtracker.entities.ValueValidator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueTypeTest {
+
+  @Test
+  void integer_shouldAcceptExactlyWhatParseIntAccepts() {
+    ValueValidator validator = ValueType.INTEGER.validator();
+    String[] values = {"0", "-0", "+7", "42", "2147483647", "-2147483648", "2147483648", "-2147483649",
+        "99999999999", "", "-", "+", "1.5", "12a", " 1", "٣"};
+
+    for (String value : values) {
+      boolean parses;
+      try {
+        Integer.parseInt(value);
+        parses = true;
+      } catch (NumberFormatException e) {
+        parses = false;
+      }
+      assertEquals(parses, validator.check(value) == null, value);
+    }
+  }
+
+  @Test
+  void booleanAndString_shouldKeepExistingRules() {
+    assertNull(ValueType.BOOLEAN.validator().check("TRUE"));
+    assertEquals("must be boolean", ValueType.BOOLEAN.validator().check("yes"));
+
+    assertNull(ValueType.STRING.validator().check("123abc"));
+    assertEquals("must contain at least one English letter", ValueType.STRING.validator().check("12-34"));
+    assertEquals("must not exceed 200 characters", ValueType.STRING.validator().check("a".repeat(201)));
+  }
+
+  @Test
+  void and_shouldRunNextCheckOnlyWhenTypeCheckPasses() {
+    ValueValidator port = ValueType.INTEGER.validator()
+        .and(value -> Integer.parseInt(value) < 1 ? "must be positive" : null);
+
+    assertNull(port.check("8080"));
+    assertEquals("must be positive", port.check("0"));
+    // parseInt is never reached for a value the type check rejects
+    assertEquals(ValueType.INTEGER.validator().check("http"), port.check("http"));
+  }
+
+  @Test
+  void ruleType_shouldResolveValidatorForEachVersion() {
+    RuleType ruleType = new RuleType(1L, "MaxConnections", "INTEGER");
+    assertSame(ValueType.INTEGER.validator(), ruleType.getValidator());
+
+    assertSame(ValueType.INTEGER.validator(), ruleType.update("MaxPoolSize", "INTEGER").getValidator());
+    assertSame(ValueType.BOOLEAN.validator(), ruleType.update("MaxPoolSize", "boolean").getValidator());
+    assertNull(ruleType.update("MaxPoolSize", "DECIMAL").getValidator());
+    assertSame(ValueType.INTEGER.validator(), ruleType.getValidator());
+  }
+}